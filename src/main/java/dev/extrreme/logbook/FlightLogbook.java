@@ -4,10 +4,15 @@ import dev.extrreme.logbook.config.Config;
 import dev.extrreme.logbook.config.ConfigKeys;
 import dev.extrreme.logbook.manager.AircraftManager;
 import dev.extrreme.logbook.manager.FlightManager;
+import dev.extrreme.logbook.manager.LogbookSchema;
+import dev.extrreme.logbook.metrics.Metrics;
 import dev.extrreme.logbook.scheduling.Scheduler;
 import dev.extrreme.logbook.utils.FileUtility;
 import dev.extrreme.logbook.sql.SQL;
 import dev.extrreme.logbook.sql.SQLite;
+import dev.extrreme.logbook.sql.SQLiteProfile;
+import dev.extrreme.logbook.sql.SQLiteStorage;
+import dev.extrreme.logbook.sql.UuidStorage;
 import dev.extrreme.logbook.ui.LogbookViewer;
 
 import java.io.File;
@@ -21,8 +26,13 @@ public class FlightLogbook {
     private static LogbookViewer window;
 
     public static void main(String[] args) {
-        if (!initWorkingDir() || !initConfig() || !initSQL() ||
-                !AircraftManager.init() || !FlightManager.init()) {
+        if (!initWorkingDir() || !initConfig() || !initSQL() || !LogbookSchema.migrate()
+                || !AircraftManager.loadCacheBlocking()) {
+            return;
+        }
+        if (Boolean.getBoolean(FlightManager.REBUILD_STATISTICS_PROPERTY)
+                && !FlightManager.rebuildStatisticsBlocking()) {
+            System.out.println("Error rebuilding the logbook statistics!");
             return;
         }
 
@@ -33,10 +43,25 @@ public class FlightLogbook {
 
     public static void close() {
         config.save();
+        if (sql != null) {
+            sql.close();
+        }
         Scheduler.shutdown();
+        dumpMetrics();
         System.exit(0);
     }
 
+    /**
+     * Write the current metrics to metrics.json and metrics.prom, in the Prometheus text format, in the working
+     * directory
+     * @return TRUE if both files were written, FALSE otherwise
+     */
+    public static boolean dumpMetrics() {
+        Metrics metrics = Metrics.getInstance();
+        return metrics.writeTo(new File(workingDir, "metrics.json"))
+                & metrics.writeTo(new File(workingDir, "metrics.prom"));
+    }
+
     private static boolean initWorkingDir() {
         workingDir = new File(FileUtility.USER_APPDATA + "FlightLogbook" + FileUtility.SEPARATOR);
         return FileUtility.createIfNotExists(workingDir);
@@ -47,13 +72,27 @@ public class FlightLogbook {
             @Override
             public void applyDefaults(Properties defaults) {
                 defaults.setProperty(ConfigKeys.DARK_MODE, "false");
+                defaults.setProperty(ConfigKeys.SQL_POOL_SIZE, String.valueOf(SQLite.DEFAULT_POOL_SIZE));
+                defaults.setProperty(ConfigKeys.SQL_POOL_IDLE_TIMEOUT, String.valueOf(SQLite.DEFAULT_POOL_IDLE_TIMEOUT));
+                defaults.setProperty(ConfigKeys.SQL_STATEMENT_CACHE_SIZE, String.valueOf(SQLite.DEFAULT_STATEMENT_CACHE_SIZE));
+                defaults.setProperty(ConfigKeys.SQL_BATCH_SIZE, String.valueOf(SQLite.DEFAULT_BATCH_SIZE));
+                defaults.setProperty(ConfigKeys.SQL_PROFILE, SQLiteProfile.DEFAULT.getName());
+                defaults.setProperty(ConfigKeys.SQL_WRITE_QUEUE_CAPACITY, String.valueOf(SQLite.DEFAULT_WRITE_QUEUE_CAPACITY));
+                defaults.setProperty(ConfigKeys.SQL_GROUP_COMMIT_DELAY, String.valueOf(SQLite.DEFAULT_GROUP_COMMIT_DELAY));
+                defaults.setProperty(ConfigKeys.SQL_SLOW_QUERY_THRESHOLD, String.valueOf(SQLite.DEFAULT_SLOW_QUERY_THRESHOLD));
+                defaults.setProperty(ConfigKeys.SQL_SCAN_WARN_ROWS, String.valueOf(SQLite.DEFAULT_SCAN_WARN_ROWS));
+                defaults.setProperty(ConfigKeys.SQL_STORAGE, SQLiteStorage.DEFAULT.getName());
+                defaults.setProperty(ConfigKeys.SQL_BACKUP_INTERVAL, String.valueOf(SQLite.DEFAULT_BACKUP_INTERVAL));
+                defaults.setProperty(ConfigKeys.SQL_BACKUP_RETENTION, String.valueOf(SQLite.DEFAULT_BACKUP_RETENTION));
+                defaults.setProperty(ConfigKeys.SQL_UUID_STORAGE, UuidStorage.DEFAULT.getName());
+                defaults.setProperty(ConfigKeys.AIRCRAFT_CACHE_SIZE, String.valueOf(AircraftManager.DEFAULT_CACHE_SIZE));
             }
         };
         return config.load();
     }
 
     private static boolean initSQL() {
-        sql = new SQLite("logbook", workingDir);
+        sql = new SQLite("logbook", workingDir, config);
         return sql.testConnection();
     }
 
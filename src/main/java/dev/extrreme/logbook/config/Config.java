@@ -2,6 +2,7 @@ package dev.extrreme.logbook.config;
 
 import dev.extrreme.logbook.utils.FileUtility;
 import dev.extrreme.logbook.utils.IgnoredResult;
+import dev.extrreme.logbook.utils.NumberUtility;
 
 import java.io.File;
 import java.io.IOException;
@@ -50,6 +51,28 @@ public abstract class Config {
         return properties.getProperty(key);
     }
 
+    /**
+     * Get a config value as an integer
+     * @param key the config key
+     * @param def the value to return if the key is not set or does not contain an integer
+     * @return the config value, as an integer
+     */
+    public int getIntValue(String key, int def) {
+        String value = getValue(key);
+        return value != null && NumberUtility.isInteger(value.trim()) ? Integer.parseInt(value.trim()) : def;
+    }
+
+    /**
+     * Get a config value as a long
+     * @param key the config key
+     * @param def the value to return if the key is not set or does not contain a long
+     * @return the config value, as a long
+     */
+    public long getLongValue(String key, long def) {
+        String value = getValue(key);
+        return value != null && NumberUtility.isLong(value.trim()) ? Long.parseLong(value.trim()) : def;
+    }
+
     public void setValue(String key, String value) {
         properties.setProperty(key, value);
     }
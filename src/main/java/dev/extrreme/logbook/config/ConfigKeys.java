@@ -2,4 +2,18 @@ package dev.extrreme.logbook.config;
 
 public class ConfigKeys {
     public static final String DARK_MODE = "darkMode";
+    public static final String SQL_POOL_SIZE = "sqlPoolSize";
+    public static final String SQL_POOL_IDLE_TIMEOUT = "sqlPoolIdleTimeout";
+    public static final String SQL_STATEMENT_CACHE_SIZE = "sqlStatementCacheSize";
+    public static final String SQL_BATCH_SIZE = "sqlBatchSize";
+    public static final String SQL_PROFILE = "sqlProfile";
+    public static final String SQL_WRITE_QUEUE_CAPACITY = "sqlWriteQueueCapacity";
+    public static final String SQL_GROUP_COMMIT_DELAY = "sqlGroupCommitDelay";
+    public static final String SQL_SLOW_QUERY_THRESHOLD = "sqlSlowQueryThreshold";
+    public static final String SQL_SCAN_WARN_ROWS = "sqlScanWarnRows";
+    public static final String SQL_STORAGE = "sqlStorage";
+    public static final String SQL_BACKUP_INTERVAL = "sqlBackupInterval";
+    public static final String SQL_BACKUP_RETENTION = "sqlBackupRetention";
+    public static final String SQL_UUID_STORAGE = "sqlUuidStorage";
+    public static final String AIRCRAFT_CACHE_SIZE = "aircraftCacheSize";
 }
@@ -0,0 +1,10 @@
+package dev.extrreme.logbook.dto;
+
+import java.time.Duration;
+
+/**
+ * A record data transfer object used to hold the statistics of the logbook, all read from the same consistent view of
+ * the logbook sqlite database
+ */
+public record LogbookStatistics(int totalFlights, Duration totalFlightTime, Flight longestFlight,
+                                Aircraft mostUsedAircraft, String mostFrequentDeparture, String mostFrequentArrival) {}
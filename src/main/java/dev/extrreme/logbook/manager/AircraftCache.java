@@ -0,0 +1,171 @@
+package dev.extrreme.logbook.manager;
+
+import dev.extrreme.logbook.dto.Aircraft;
+import dev.extrreme.logbook.metrics.Counter;
+import dev.extrreme.logbook.metrics.Metrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory registry of aircraft keyed by registration, holding the one {@link Aircraft} instance shared by every
+ * flight flown with it.
+ * <p>
+ * Unbounded, the registry holds every aircraft in the logbook once loaded, so it answers every lookup, including that
+ * an aircraft does not exist, without querying the database. Bounded, it holds only the most recently used aircraft,
+ * and lookups it cannot answer fall through to the database
+ */
+final class AircraftCache {
+    private final int maxSize;
+    private final Map<String, Aircraft> aircraft;
+    private boolean complete = false;
+    // Bumped by every removal, so a read can tell whether an aircraft was removed after it began
+    private long removals = 0;
+
+    private final Counter hits = Metrics.getInstance().counter("aircraft_cache_hits");
+    private final Counter misses = Metrics.getInstance().counter("aircraft_cache_misses");
+
+    /**
+     * @param maxSize the maximum number of aircraft to hold, the least recently used are evicted first, or 0 or less
+     *                to hold every aircraft
+     */
+    AircraftCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        // Unbounded, aircraft are kept in the order they were loaded and added, as the database returns them
+        this.aircraft = new LinkedHashMap<>(16, 0.75f, this.maxSize > 0) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Aircraft> eldest) {
+                if (AircraftCache.this.maxSize > 0 && size() > AircraftCache.this.maxSize) {
+                    complete = false;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Replace the contents of the registry with every aircraft in the logbook
+     * @param all every aircraft in the logbook
+     */
+    synchronized void load(@NotNull Collection<Aircraft> all) {
+        aircraft.clear();
+        complete = true;
+        all.forEach(a -> aircraft.put(a.registration(), a));
+    }
+
+    /**
+     * Check if the registry holds every aircraft in the logbook, in which case an aircraft it does not hold does not
+     * exist
+     * @return TRUE if the registry is complete, FALSE otherwise
+     */
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Look up an aircraft, recording a hit if the registry can answer the lookup and a miss otherwise
+     * @param registration the registration of the aircraft
+     * @return the aircraft, or null if it is not held
+     */
+    @Nullable
+    synchronized Aircraft get(String registration) {
+        Aircraft found = aircraft.get(registration);
+        if (found != null || complete) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return found;
+    }
+
+    /**
+     * Get every aircraft in the logbook, recording a hit if the registry is complete and a miss otherwise
+     * @return a copy of the aircraft held, in the order they were loaded and added, or least recently used first if
+     * the registry is bounded, or null if the registry is not complete
+     */
+    @Nullable
+    synchronized List<Aircraft> getAll() {
+        if (!complete) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return new ArrayList<>(aircraft.values());
+    }
+
+    /**
+     * Get the number of aircraft removed from the registry so far, to be taken before a read begins and passed to
+     * {@link #intern(Aircraft, long)} with the aircraft it read
+     * @return the number of removals
+     */
+    synchronized long getRemovals() {
+        return removals;
+    }
+
+    /**
+     * Get the shared instance of an aircraft read from the database. An aircraft that is not held is only held from
+     * then on if the registry is bounded and no aircraft has been removed since the read began, as a read that began
+     * before a removal committed may still see the removed aircraft. A complete registry already holds every aircraft
+     * added since it was loaded, so it never holds an aircraft it is given
+     * @param read the aircraft as read from the database, may be null
+     * @param removalsAtRead the {@link #getRemovals() number of removals} when the read began, or -1 if it is not
+     *                       known, in which case the aircraft is not held
+     * @return the shared instance with the aircraft's registration if one is held, otherwise the aircraft read, or
+     * null if the aircraft is null
+     */
+    @Nullable
+    synchronized Aircraft intern(@Nullable Aircraft read, long removalsAtRead) {
+        if (read == null) {
+            return null;
+        }
+        Aircraft held = aircraft.get(read.registration());
+        if (held != null) {
+            return held;
+        }
+        if (!complete && removalsAtRead >= 0 && removalsAtRead == removals) {
+            aircraft.put(read.registration(), read);
+        }
+        return read;
+    }
+
+    /**
+     * Hold an aircraft that has been written to the database, replacing any held aircraft with the same registration
+     * @param added the aircraft
+     */
+    synchronized void put(@NotNull Aircraft added) {
+        aircraft.put(added.registration(), added);
+    }
+
+    /**
+     * Stop holding an aircraft that has been removed from the database
+     * @param registration the registration of the aircraft
+     */
+    synchronized void remove(String registration) {
+        aircraft.remove(registration);
+        removals++;
+    }
+
+    /**
+     * Get the number of aircraft held
+     * @return the number of aircraft
+     */
+    synchronized long size() {
+        return aircraft.size();
+    }
+
+    /**
+     * Get the percentage of lookups the registry answered, counted across every registry loaded
+     * @return the hit rate, as a percentage, 0 if there have been no lookups
+     */
+    long getHitRatePercent() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0 : hit * 100 / total;
+    }
+}
@@ -1,34 +1,94 @@
 package dev.extrreme.logbook.manager;
 
 import dev.extrreme.logbook.FlightLogbook;
+import dev.extrreme.logbook.config.Config;
+import dev.extrreme.logbook.config.ConfigKeys;
 import dev.extrreme.logbook.dto.Aircraft;
-import dev.extrreme.logbook.dto.Airframe;
-import dev.extrreme.logbook.dto.Flight;
+import dev.extrreme.logbook.metrics.Metrics;
 import dev.extrreme.logbook.scheduling.Scheduler;
+import dev.extrreme.logbook.sql.BatchResult;
+import dev.extrreme.logbook.sql.RowMapper;
 import dev.extrreme.logbook.sql.SQLManager;
-import dev.extrreme.logbook.utils.DurationUtility;
+import dev.extrreme.logbook.sql.WriteBehindQueue;
 import dev.extrreme.logbook.utils.SQLUtility;
 import dev.extrreme.logbook.utils.executable.Executable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 public class AircraftManager {
-    private static final String AIRCRAFT_TABLE = "aircraft";
-    private static final String[] AIRCRAFT_TABLE_COLUMNS = new String[] {
+    static final String AIRCRAFT_TABLE = "aircraft";
+    static final String[] AIRCRAFT_TABLE_COLUMNS = new String[] {
             "registration", "airframe", "engine"};
-    private static final String[] AIRCRAFT_TABLE_COLUMNTYPES = new String[] {
+    static final String[] AIRCRAFT_TABLE_COLUMNTYPES = new String[] {
             "TEXT NOT NULL UNIQUE", "TEXT", "TEXT"};
 
+    public static final int DEFAULT_CACHE_SIZE = 0;
+
+    // The total flight time, in millis, of each aircraft, to be followed by an optional WHERE clause and the GROUP BY
+    private static final String FLIGHT_TIMES_SELECT = "SELECT "
+            + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE_COLUMNS[6]) + " AS `aircraft`, SUM("
+            + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE_COLUMNS[5]) + " - "
+            + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE_COLUMNS[4]) + ") AS `flighttime` FROM "
+            + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE);
+    private static final String FLIGHT_TIMES_GROUP_BY = " GROUP BY "
+            + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE_COLUMNS[6]);
+
+    private static final RowMapper<Map.Entry<String, Duration>> FLIGHT_TIME_MAPPER = new RowMapper<>() {
+        @NotNull
+        @Override
+        public String[] getColumns() {
+            return new String[] {"aircraft", "flighttime"};
+        }
+
+        @Nullable
+        @Override
+        public Map.Entry<String, Duration> map(ResultSet res, int[] indexes) throws SQLException {
+            String registration = res.getString(indexes[0]);
+            return registration == null ? null : Map.entry(registration, Duration.ofMillis(res.getLong(indexes[1])));
+        }
+    };
+
+    // Empty until loaded, so lookups fall through to the database until then
+    private static volatile AircraftCache cache = new AircraftCache(DEFAULT_CACHE_SIZE);
+
+    static {
+        // Registered once, reading whichever registry is current, as the registry is replaced on every load
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("aircraft_cache_size", () -> cache.size());
+        metrics.gauge("aircraft_cache_hit_rate_percent", () -> cache.getHitRatePercent());
+    }
+
     /**
-     * Initializes the AircraftManager, creating necessary SQL tables
-     * @return TRUE if the aircraft SQL table was successfully created in the database, FALSE otherwise
+     * Load every aircraft in the logbook sqlite database into the in-memory registry, which from then on answers
+     * aircraft lookups without querying the database and is kept up to date by every aircraft write, will block thread
+     * it is called from until sql query completion. The size of the registry is read from the config, a size of 0
+     * holds every aircraft
+     * @return TRUE if the aircraft were loaded, FALSE if an issue occurred reading them
      */
-    public static boolean init() {
-        return getSQLManager().createTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS, AIRCRAFT_TABLE_COLUMNTYPES,
-                "PRIMARY KEY (`registration`)");
+    public static boolean loadCacheBlocking() {
+        return Metrics.time("aircraft_cache_load_nanos", () -> {
+            Config config = FlightLogbook.getConfig();
+            AircraftCache loaded = new AircraftCache(config == null ? DEFAULT_CACHE_SIZE
+                    : config.getIntValue(ConfigKeys.AIRCRAFT_CACHE_SIZE, DEFAULT_CACHE_SIZE));
+
+            List<Aircraft> aircraft = new ArrayList<>();
+            if (!getSQLManager().forEachRow(AIRCRAFT_TABLE, AircraftRowMapper.INSTANCE, null, aircraft::add)) {
+                System.out.println("Error loading aircraft!");
+                return false;
+            }
+
+            loaded.load(aircraft);
+            cache = loaded;
+            return true;
+        });
     }
 
     /**
@@ -38,23 +98,18 @@ public class AircraftManager {
      */
     @NotNull
     public static List<Aircraft> getAllAircraftBlocking() {
-        List<Aircraft> aircraft = new ArrayList<>();
-
-        List<Map<Object, Object>> rows = getSQLManager().getAllRowsInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS);
-
-        if (rows == null || rows.isEmpty()) {
+        return Metrics.time("aircraft_get_all_nanos", () -> {
+            AircraftCache current = cache;
+            List<Aircraft> aircraft = current.getAll();
+            if (aircraft != null) {
+                return aircraft;
+            }
+
+            long readStamp = readStamp(current, false);
+            aircraft = getSQLManager().getAllRowsInTable(AIRCRAFT_TABLE, AircraftRowMapper.INSTANCE, null);
+            aircraft.replaceAll(a -> current.intern(a, readStamp));
             return aircraft;
-        }
-
-        rows.forEach(row -> {
-            String registration = (String) row.get(AIRCRAFT_TABLE_COLUMNS[0]);
-            String airframe = (String) row.get(AIRCRAFT_TABLE_COLUMNS[1]);
-            String engine = (String) row.get(AIRCRAFT_TABLE_COLUMNS[2]);
-
-            aircraft.add(new Aircraft(registration, Airframe.valueOf(airframe), engine));
         });
-
-        return aircraft;
     }
 
     /**
@@ -67,6 +122,28 @@ public class AircraftManager {
                 callback.execute(getAllAircraftBlocking()));
     }
 
+    /**
+     * Get a list of all aircraft from the logbook sqlite database, will run on the {@link Scheduler scheduler's}
+     * executor
+     * @return a future completed with the list of {@link Aircraft} data transfer objects, see return options of
+     * {@link #getAllAircraftBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<List<Aircraft>> allAircraftAsync() {
+        return allAircraftAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get a list of all aircraft from the logbook sqlite database, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the list of {@link Aircraft} data transfer objects, see return options of
+     * {@link #getAllAircraftBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<List<Aircraft>> allAircraftAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(AircraftManager::getAllAircraftBlocking, executor);
+    }
+
     /**
      * Get an aircraft from the logbook sqlite database, will block thread it is called from until sql query completion
      * @param registration The registration of the aircraft to find in database, as a string
@@ -74,23 +151,29 @@ public class AircraftManager {
      */
     @Nullable
     public static Aircraft getAircraftByRegistrationBlocking(String registration) {
-        if (registration == null) {
-            return null;
-        }
-        
-        List<Map<Object, Object>> rows = getSQLManager().getRowsInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0],
-                registration, AIRCRAFT_TABLE_COLUMNS);
-
-        if (rows == null || rows.isEmpty()) {
-            return null;
-        }
-
-        Map<Object, Object> row = rows.get(0);
-
-        String airframe = (String) row.get(AIRCRAFT_TABLE_COLUMNS[1]);
-        String engine = (String) row.get(AIRCRAFT_TABLE_COLUMNS[2]);
+        return getAircraftByRegistrationBlocking(registration, false);
+    }
 
-        return new Aircraft(registration, Airframe.valueOf(airframe), engine);
+    // An aircraft read inside a transaction or snapshot is not held in the registry, see beginRead
+    @Nullable
+    private static Aircraft getAircraftByRegistrationBlocking(String registration, boolean inSnapshot) {
+        return Metrics.time("aircraft_get_by_registration_nanos", () -> {
+            if (registration == null) {
+                return null;
+            }
+
+            AircraftCache current = cache;
+            Aircraft cached = current.get(registration);
+            if (cached != null || current.isComplete()) {
+                return cached;
+            }
+
+            long readStamp = readStamp(current, inSnapshot);
+            List<Aircraft> aircraft = getSQLManager().getRowsInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0],
+                    registration, AircraftRowMapper.INSTANCE, null);
+
+            return aircraft.isEmpty() ? null : current.intern(aircraft.get(0), readStamp);
+        });
     }
 
     /**
@@ -104,33 +187,138 @@ public class AircraftManager {
                 callback.execute(getAircraftByRegistrationBlocking(registration)));
     }
 
+    /**
+     * Get an aircraft from the logbook sqlite database, will run on the {@link Scheduler scheduler's} executor
+     * @param registration The registration of the aircraft to find in the database, as a string
+     * @return a future completed with the {@link Aircraft} data transfer object, see return options of
+     * {@link #getAircraftByRegistrationBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<Aircraft> aircraftByRegistrationAsync(String registration) {
+        return aircraftByRegistrationAsync(registration, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get an aircraft from the logbook sqlite database, will run on the specified executor
+     * @param registration The registration of the aircraft to find in the database, as a string
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link Aircraft} data transfer object, see return options of
+     * {@link #getAircraftByRegistrationBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<Aircraft> aircraftByRegistrationAsync(String registration, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getAircraftByRegistrationBlocking(registration), executor);
+    }
+
     /**
      * Add an aircraft to the logbook sqlite database, will block thread it is called from until sql query completion
      * @param aircraft The {@link Aircraft} data transfer object containing all necessary data to store in the database
      * @return TRUE if the aircraft was successfully inserted into the database, FALSE if an issue occurred adding the aircraft
      */
     public static boolean addAircraftBlocking(Aircraft aircraft) {
-        Map<String, Object> vals = new HashMap<>();
-
-        vals.put(AIRCRAFT_TABLE_COLUMNS[0], aircraft.registration());
-        vals.put(AIRCRAFT_TABLE_COLUMNS[1], aircraft.airframe().name());
-        vals.put(AIRCRAFT_TABLE_COLUMNS[2], aircraft.engine());
-
-        return getSQLManager().setRowInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0],
-                aircraft.registration(), vals);
+        return Metrics.time("aircraft_add_nanos", () -> {
+            boolean res = getSQLManager().setRowInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0],
+                    aircraft.registration(), toRow(aircraft));
+            if (res) {
+                getSQLManager().afterCommit(() -> cache.put(aircraft));
+            }
+            return res;
+        });
     }
 
     /**
-     * Add an aircraft to the logbook sqlite database, will run in a separate, asynchronous thread
+     * Add an aircraft to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
      * @param aircraft The {@link Aircraft} data transfer object containing all necessary data to store in the database
      * @param callback The {@link Executable} to be executed with the boolean response of whether the aircraft was
      * successfully inserted into the database, see return options of {@link #addAircraftBlocking(Aircraft)}
      */
     public static void addAircraft(Aircraft aircraft, Executable<Boolean> callback) {
-        Scheduler.getInstance().runTaskAsynchronously(() -> 
+        queueWrite(conn -> addAircraftBlocking(aircraft), callback);
+    }
+
+    /**
+     * Add an aircraft to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param aircraft The {@link Aircraft} data transfer object containing all necessary data to store in the database
+     * @return a future completed, on the writer thread, with whether the aircraft was inserted once it has been
+     * committed, see return options of {@link #addAircraftBlocking(Aircraft)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> addAircraftAsync(Aircraft aircraft) {
+        return queueWrite(conn -> addAircraftBlocking(aircraft));
+    }
+
+    /**
+     * Add an aircraft to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param aircraft The {@link Aircraft} data transfer object containing all necessary data to store in the database
+     * @param executor the {@link Executor} to complete the future on
+     * @return a future completed with whether the aircraft was inserted once it has been committed, see return options
+     * of {@link #addAircraftBlocking(Aircraft)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> addAircraftAsync(Aircraft aircraft, Executor executor) {
+        return addAircraftAsync(aircraft).thenApplyAsync(res -> res, executor);
+    }
+
+    /**
+     * Add multiple aircraft to the logbook sqlite database in a single transaction, will block thread it is called from
+     * until sql query completion
+     * @param aircraft The {@link Aircraft} data transfer objects containing all necessary data to store in the database
+     * @return The {@link BatchResult} of the insertion, recording the registrations of any aircraft that could not be
+     * inserted
+     */
+    @NotNull
+    public static BatchResult addAircraftBlocking(Collection<Aircraft> aircraft) {
+        return Metrics.time("aircraft_add_batch_nanos", () -> {
+            Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+            aircraft.forEach(a -> rows.put(a.registration(), toRow(a)));
+
+            BatchResult res = getSQLManager().setRowsInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0], rows);
+            List<Aircraft> added = aircraft.stream().filter(a -> !res.getFailures().containsKey(a.registration()))
+                    .collect(Collectors.toList());
+            getSQLManager().afterCommit(() -> added.forEach(a -> cache.put(a)));
+            return res;
+        });
+    }
+
+    /**
+     * Add multiple aircraft to the logbook sqlite database in a single transaction, will run in a separate,
+     * asynchronous thread
+     * @param aircraft The {@link Aircraft} data transfer objects containing all necessary data to store in the database
+     * @param callback The {@link Executable} to be executed with the {@link BatchResult} of the insertion, see return
+     * options of {@link #addAircraftBlocking(Collection)}
+     */
+    public static void addAircraft(Collection<Aircraft> aircraft, Executable<BatchResult> callback) {
+        Scheduler.getInstance().runTaskAsynchronously(() ->
                 callback.execute(addAircraftBlocking(aircraft)));
     }
 
+    /**
+     * Add multiple aircraft to the logbook sqlite database in a single transaction, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @param aircraft The {@link Aircraft} data transfer objects containing all necessary data to store in the database
+     * @return a future completed with the {@link BatchResult} of the insertion, see return options of
+     * {@link #addAircraftBlocking(Collection<Aircraft>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> addAllAircraftAsync(Collection<Aircraft> aircraft) {
+        return addAllAircraftAsync(aircraft, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Add multiple aircraft to the logbook sqlite database in a single transaction, will run on the specified executor
+     * @param aircraft The {@link Aircraft} data transfer objects containing all necessary data to store in the database
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link BatchResult} of the insertion, see return options of
+     * {@link #addAircraftBlocking(Collection<Aircraft>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> addAllAircraftAsync(Collection<Aircraft> aircraft, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> addAircraftBlocking(aircraft), executor);
+    }
+
     /**
      * Remove an aircraft from the logbook sqlite database, will block thread it is called from until sql query
      * completion
@@ -139,18 +327,143 @@ public class AircraftManager {
      * aircraft
      */
     public static boolean removeAircraftBlocking(String registration) {
-        return getSQLManager().deleteRowInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0], registration);
+        return Metrics.time("aircraft_remove_nanos", () -> {
+            boolean res = getSQLManager().deleteRowInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0], registration);
+            if (res) {
+                getSQLManager().afterCommit(() -> cache.remove(registration));
+            }
+            return res;
+        });
     }
 
     /**
-     * Remove an aircraft from the logbook sqlite database, will run in a separate, asynchronous thread
+     * Remove an aircraft from the logbook sqlite database, will be queued and committed together with other writes by
+     * the {@link WriteBehindQueue write queue}
      * @param registration The registration of the aircraft to find and delete in the database, as a string
      * @param callback The {@link Executable} to be executed with the boolean response of whether the aircraft was
      * successfully removed from the database, see return options of {@link #removeAircraftBlocking(String)
      */
     public static void removeAircraft(String registration, Executable<Boolean> callback) {
-        Scheduler.getInstance().runTaskAsynchronously(() -> 
-                callback.execute(removeAircraftBlocking(registration)));
+        queueWrite(conn -> removeAircraftBlocking(registration), callback);
+    }
+
+    /**
+     * Remove an aircraft and, optionally, all of the flights logged with it from the logbook sqlite database in a
+     * single transaction, so that either all or none of them are removed, will block thread it is called from until
+     * sql query completion
+     * @param registration The registration of the aircraft to find and delete in the database, as a string
+     * @param removeFlights Whether to also delete the flights logged with the aircraft
+     * @return TRUE if the aircraft (and its flights) were successfully removed from the database, FALSE if an issue
+     * occurred and nothing was removed
+     */
+    public static boolean removeAircraftBlocking(String registration, boolean removeFlights) {
+        return Metrics.time("aircraft_remove_with_flights_nanos", () -> {
+            SQLManager manager = getSQLManager();
+            Boolean res = manager.inTransaction(conn -> {
+                if (removeFlights && !manager.deleteRowInTable(FlightManager.FLIGHTS_TABLE, "aircraft", registration)) {
+                    throw new SQLException("Could not remove the flights of aircraft " + registration);
+                }
+                if (!manager.deleteRowInTable(AIRCRAFT_TABLE, AIRCRAFT_TABLE_COLUMNS[0], registration)) {
+                    throw new SQLException("Could not remove aircraft " + registration);
+                }
+                manager.afterCommit(() -> cache.remove(registration));
+                return true;
+            });
+
+            return res != null && res;
+        });
+    }
+
+    /**
+     * Remove an aircraft and, optionally, all of the flights logged with it from the logbook sqlite database in a
+     * single transaction, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param registration The registration of the aircraft to find and delete in the database, as a string
+     * @param removeFlights Whether to also delete the flights logged with the aircraft
+     * @param callback The {@link Executable} to be executed with the boolean response of whether the aircraft was
+     * successfully removed from the database, see return options of {@link #removeAircraftBlocking(String, boolean)}
+     */
+    public static void removeAircraft(String registration, boolean removeFlights, Executable<Boolean> callback) {
+        queueWrite(conn -> removeAircraftBlocking(registration, removeFlights), callback);
+    }
+
+    /**
+     * Remove an aircraft and, optionally, all of the flights logged with it from the logbook sqlite database in a
+     * single transaction, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param registration The registration of the aircraft to find and delete in the database, as a string
+     * @param removeFlights Whether to also delete the flights logged with the aircraft
+     * @return a future completed, on the writer thread, with whether the aircraft was removed once it has been
+     * committed, see return options of {@link #removeAircraftBlocking(String, boolean)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> removeAircraftAsync(String registration, boolean removeFlights) {
+        return queueWrite(conn -> removeAircraftBlocking(registration, removeFlights));
+    }
+
+    /**
+     * Remove an aircraft and, optionally, all of the flights logged with it from the logbook sqlite database in a
+     * single transaction, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param registration The registration of the aircraft to find and delete in the database, as a string
+     * @param removeFlights Whether to also delete the flights logged with the aircraft
+     * @param executor the {@link Executor} to complete the future on
+     * @return a future completed with whether the aircraft was removed once it has been committed, see return options
+     * of {@link #removeAircraftBlocking(String, boolean)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> removeAircraftAsync(String registration, boolean removeFlights,
+                                                                 Executor executor) {
+        return removeAircraftAsync(registration, removeFlights).thenApplyAsync(res -> res, executor);
+    }
+
+    /**
+     * Get the total logged flight time of every aircraft with logged flights from the logbook sqlite database, summed
+     * by the database in a single query over the index covering each aircraft's flight times, will block thread it is
+     * called from until sql query completion
+     * @return the flight time of each aircraft, keyed by registration, ordered from the most to the least flight time,
+     * empty if there are no flights or an issue occurred reading them
+     */
+    @NotNull
+    public static Map<String, Duration> getFlightTimesBlocking() {
+        return Metrics.time("aircraft_get_flight_times_nanos", () -> {
+            Map<String, Duration> flightTimes = new LinkedHashMap<>();
+            getSQLManager().forEachResult(FLIGHT_TIMES_SELECT + FLIGHT_TIMES_GROUP_BY + " ORDER BY `flighttime` DESC;",
+                    null, FLIGHT_TIME_MAPPER, entry -> flightTimes.put(entry.getKey(), entry.getValue()));
+            return flightTimes;
+        });
+    }
+
+    /**
+     * Get the total logged flight time of every aircraft with logged flights from the logbook sqlite database, will run
+     * in a separate, asynchronous thread
+     * @param callback The {@link Executable} to be executed with the flight times, see return options of
+     * {@link #getFlightTimesBlocking()}
+     */
+    public static void getFlightTimes(Executable<Map<String, Duration>> callback) {
+        Scheduler.getInstance().runTaskAsynchronously(() ->
+                callback.execute(getFlightTimesBlocking()));
+    }
+
+    /**
+     * Get the total logged flight time of every aircraft with logged flights from the logbook sqlite database, will run
+     * on the {@link Scheduler scheduler's} executor
+     * @return a future completed with the flight times, see return options of {@link #getFlightTimesBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Map<String, Duration>> flightTimesAsync() {
+        return flightTimesAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the total logged flight time of every aircraft with logged flights from the logbook sqlite database, will run
+     * on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the flight times, see return options of {@link #getFlightTimesBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Map<String, Duration>> flightTimesAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(AircraftManager::getFlightTimesBlocking, executor);
     }
 
     /**
@@ -162,12 +475,17 @@ public class AircraftManager {
      */
     @NotNull
     public static Duration getFlightTimeBlocking(String registration) {
-        List<Duration> durations = FlightManager.getLoggedFlightsBlocking().stream()
-                .filter(flight -> flight.aircraft().registration().equals(registration))
-                .map(Flight::getFlightTime)
-                .toList();
+        return Metrics.time("aircraft_get_flight_time_nanos", () -> {
+            if (registration == null) {
+                return Duration.ZERO;
+            }
+
+            List<Map.Entry<String, Duration>> flightTime = getSQLManager().query(FLIGHT_TIMES_SELECT + " WHERE "
+                    + SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE_COLUMNS[6]) + " = ?"
+                    + FLIGHT_TIMES_GROUP_BY + ";", Collections.singletonMap(1, registration), FLIGHT_TIME_MAPPER);
 
-        return DurationUtility.sum(durations);
+            return flightTime.isEmpty() ? Duration.ZERO : flightTime.get(0).getValue();
+        });
     }
 
     /**
@@ -183,6 +501,31 @@ public class AircraftManager {
                 callback.execute(getFlightTimeBlocking(registration)));
     }
 
+    /**
+     * Get the total logged flight time of an aircraft from the logbook sqlite database, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @param registration The registration of the aircraft to get the flight time of, as a string
+     * @return a future completed with the flight time of the aircraft, see return options of
+     * {@link #getFlightTimeBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<Duration> flightTimeAsync(String registration) {
+        return flightTimeAsync(registration, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the total logged flight time of an aircraft from the logbook sqlite database, will run on the specified
+     * executor
+     * @param registration The registration of the aircraft to get the flight time of, as a string
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the flight time of the aircraft, see return options of
+     * {@link #getFlightTimeBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<Duration> flightTimeAsync(String registration, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getFlightTimeBlocking(registration), executor);
+    }
+
     /**
      * Get the most used aircraft (based on flight time) from the logbook sqlite database, will block thread it is
      * called from until sql query completion
@@ -190,13 +533,31 @@ public class AircraftManager {
      */
     @Nullable
     public static Aircraft getMostUsedAircraftBlocking() {
-        TreeMap<Duration, Aircraft> flightTimes = new TreeMap<>();
-
-        getAllAircraftBlocking().forEach(aircraft ->
-                flightTimes.put(getFlightTimeBlocking(aircraft.registration()), aircraft));
-
-        return flightTimes.isEmpty() ? null : flightTimes.lastEntry().getValue();
+        return getMostUsedAircraftBlocking(false);
+    }
 
+    /**
+     * Get the most used aircraft (based on flight time) from the logbook sqlite database, will block thread it is
+     * called from until sql query completion
+     * @param inSnapshot whether it is read inside a transaction or snapshot, see {@link #beginRead(boolean)}
+     * @return The {@link Aircraft} data transfer object representing the found aircraft data in the database
+     */
+    @Nullable
+    static Aircraft getMostUsedAircraftBlocking(boolean inSnapshot) {
+        return Metrics.time("aircraft_get_most_used_nanos", () -> {
+            // Read from the per aircraft summary kept up to date as flights are written, rather than summing every
+            // flight. Flights may outlive their aircraft, so the most used aircraft is the first that still exists
+            List<Object> registrations = getSQLManager().getColumnInTable(LogbookStats.AIRCRAFT_STATS_TABLE,
+                    LogbookStats.REGISTRATION_COLUMN, "ORDER BY "
+                            + SQLUtility.quoteIdentifier(LogbookStats.FLIGHT_TIME_COLUMN) + " DESC");
+            for (Object registration : registrations) {
+                Aircraft aircraft = getAircraftByRegistrationBlocking((String) registration, inSnapshot);
+                if (aircraft != null) {
+                    return aircraft;
+                }
+            }
+            return null;
+        });
     }
 
     /**
@@ -210,6 +571,28 @@ public class AircraftManager {
                 callback.execute(getMostUsedAircraftBlocking()));
     }
 
+    /**
+     * Get the most used aircraft from the logbook sqlite database, will run on the {@link Scheduler scheduler's}
+     * executor
+     * @return a future completed with the {@link Aircraft} data transfer object, see return options of
+     * {@link #getMostUsedAircraftBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Aircraft> mostUsedAircraftAsync() {
+        return mostUsedAircraftAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the most used aircraft from the logbook sqlite database, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link Aircraft} data transfer object, see return options of
+     * {@link #getMostUsedAircraftBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Aircraft> mostUsedAircraftAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(AircraftManager::getMostUsedAircraftBlocking, executor);
+    }
+
     /**
      * Export the logbook sqlite database aircraft table to a .csv file
      */
@@ -217,7 +600,55 @@ public class AircraftManager {
         SQLUtility.writeTableToCSV(FlightLogbook.getSQL(), AIRCRAFT_TABLE);
     }
 
+    private static Map<String, Object> toRow(Aircraft aircraft) {
+        Map<String, Object> vals = new HashMap<>();
+
+        vals.put(AIRCRAFT_TABLE_COLUMNS[0], aircraft.registration());
+        vals.put(AIRCRAFT_TABLE_COLUMNS[1], aircraft.airframe().name());
+        vals.put(AIRCRAFT_TABLE_COLUMNS[2], aircraft.engine());
+
+        return vals;
+    }
+
+    /**
+     * Get the stamp of a read that is about to begin, to be passed to {@link #intern(Aircraft, long)} with the aircraft
+     * it reads
+     * @param inSnapshot whether the read is made inside a transaction or snapshot, which may have begun before an
+     *                   aircraft's removal committed, so the aircraft it reads are not held
+     * @return the stamp
+     */
+    static long beginRead(boolean inSnapshot) {
+        return readStamp(cache, inSnapshot);
+    }
+
+    /**
+     * Get the shared instance of an aircraft read from the database, so that every flight flown with an aircraft
+     * refers to the same instance of it
+     * @param read the aircraft as read from the database, may be null
+     * @param readStamp the {@link #beginRead(boolean) stamp} taken before the read began
+     * @return the shared instance, or the aircraft read if none is held, or null if the aircraft is null
+     */
+    @Nullable
+    static Aircraft intern(@Nullable Aircraft read, long readStamp) {
+        return cache.intern(read, readStamp);
+    }
+
+    private static long readStamp(AircraftCache current, boolean inSnapshot) {
+        // When the reads of a transaction or snapshot began is not known
+        return inSnapshot ? -1 : current.getRemovals();
+    }
+
     private static SQLManager getSQLManager() {
         return FlightLogbook.getSQL().getManager();
     }
+
+    private static <T> CompletableFuture<T> queueWrite(SQLManager.SQLExecutable<T> write) {
+        return FlightLogbook.getSQL().getWriteQueue().submit(write);
+    }
+
+    private static void queueWrite(SQLManager.SQLExecutable<Boolean> write, Executable<Boolean> callback) {
+        // The callback runs off the writer thread, so that it cannot hold up the next group commit
+        queueWrite(write).exceptionally(e -> false)
+                .thenAcceptAsync(callback::execute, Scheduler.getInstance().getExecutor());
+    }
 }
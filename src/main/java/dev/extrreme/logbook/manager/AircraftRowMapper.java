@@ -0,0 +1,51 @@
+package dev.extrreme.logbook.manager;
+
+import dev.extrreme.logbook.dto.Aircraft;
+import dev.extrreme.logbook.dto.Airframe;
+import dev.extrreme.logbook.sql.RowMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Decodes rows of the aircraft table into {@link Aircraft} data transfer objects
+ */
+class AircraftRowMapper implements RowMapper<Aircraft> {
+    static final AircraftRowMapper INSTANCE = new AircraftRowMapper();
+
+    @NotNull
+    @Override
+    public String[] getColumns() {
+        return AircraftManager.AIRCRAFT_TABLE_COLUMNS;
+    }
+
+    @Nullable
+    @Override
+    public Aircraft map(ResultSet res, int[] indexes) throws SQLException {
+        return map(res, indexes, 0);
+    }
+
+    /**
+     * Decode an aircraft from the columns of a row that starts at an offset, so that an aircraft joined onto another
+     * table's row can be decoded in the same pass as that row
+     * @param offset the position in the indexes of the index of the aircraft's first column
+     */
+    @Nullable
+    Aircraft map(ResultSet res, int[] indexes, int offset) throws SQLException {
+        String registration = res.getString(indexes[offset]);
+        if (registration == null) {
+            return null;
+        }
+
+        Airframe airframe;
+        try {
+            airframe = Airframe.valueOf(res.getString(indexes[offset + 1]));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+
+        return new Aircraft(registration, airframe, res.getString(indexes[offset + 2]));
+    }
+}
@@ -2,33 +2,66 @@ package dev.extrreme.logbook.manager;
 
 import dev.extrreme.logbook.FlightLogbook;
 import dev.extrreme.logbook.dto.Aircraft;
+import dev.extrreme.logbook.metrics.Metrics;
 import dev.extrreme.logbook.dto.Flight;
+import dev.extrreme.logbook.dto.LogbookStatistics;
 import dev.extrreme.logbook.scheduling.Scheduler;
+import dev.extrreme.logbook.sql.BatchResult;
 import dev.extrreme.logbook.sql.SQLManager;
-import dev.extrreme.logbook.utils.DurationUtility;
+import dev.extrreme.logbook.sql.UuidStorage;
+import dev.extrreme.logbook.sql.WriteBehindQueue;
 import dev.extrreme.logbook.utils.SQLUtility;
 import dev.extrreme.logbook.utils.executable.Executable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 public class FlightManager {
+    /**
+     * The order in which pages of flights are read, by departure time
+     */
+    public enum PageDirection {
+        // Earliest departure first
+        ASCENDING,
+        // Latest departure first
+        DESCENDING
+    }
+
+    /**
+     * The measures flights can be ranked by
+     */
+    public enum FlightMetric {
+        // Longest flight time first
+        DURATION,
+        // Latest departure first
+        MOST_RECENT,
+        // Earliest departure first
+        EARLIEST
+    }
+
     public static final String FLIGHTS_TABLE = "flights";
     public static final String[] FLIGHTS_TABLE_COLUMNS = new String[] {
             "uuid", "flightnumber", "dep", "arr", "departuretime", "arrivaltime", "aircraft"};
     public static final String[] FLIGHTS_TABLE_COLUMNTYPES = new String[] {
             "TEXT UNIQUE NOT NULL", "TEXT", "TEXT", "TEXT", "INTEGER", "INTEGER", "TEXT"};
 
-    /**
-     * Initializes the FlightManager, creating necessary SQL tables
-     * @return TRUE if the flights SQL table was successfully created in the database, FALSE otherwise
-     */
-    public static boolean init() {
-        return getSQLManager().createTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS, FLIGHTS_TABLE_COLUMNTYPES,
-                "PRIMARY KEY (`uuid`)");
-    }
+    // Set to true to rebuild the statistics summary tables on start
+    public static final String REBUILD_STATISTICS_PROPERTY = "logbook.stats.rebuild";
+
+    // Until converted, uuids are assumed to be stored as they were before their storage could be chosen
+    private static volatile UuidStorage uuidStorage = UuidStorage.TEXT;
+    // The number of flights copied into the rebuilt flights table in each batch when converting their uuids
+    private static final int CONVERSION_BATCH_SIZE = 1_000;
 
     /**
      * Get a list of all flights from the logbook sqlite database, will block thread it is called from until sql query
@@ -37,33 +70,27 @@ public class FlightManager {
      */
     @NotNull
     public static List<Flight> getLoggedFlightsBlocking() {
-        List<Flight> flights = new ArrayList<>();
+        return Metrics.time("flights_get_all_nanos", () -> {
+            List<Flight> flights = new ArrayList<>();
 
-        List<Map<Object, Object>> rows = getSQLManager().getAllRowsInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS);
-
-        if (rows == null || rows.isEmpty()) {
-            return flights;
-        }
-
-        rows.forEach(row -> {
-            UUID uuid;
-            try {
-                uuid = UUID.fromString((String) row.get(FLIGHTS_TABLE_COLUMNS[0]));
-            } catch (IllegalArgumentException e) {
-                return;
+            if (!forEachLoggedFlightBlocking(flights::add)) {
+                return new ArrayList<>();
             }
-            String flightNumber = (String) row.get(FLIGHTS_TABLE_COLUMNS[1]);
-            String departure = (String) row.get(FLIGHTS_TABLE_COLUMNS[2]);
-            String arrival = (String) row.get(FLIGHTS_TABLE_COLUMNS[3]);
-            long departureTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[4]);
-            long arrivalTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[5]);
-
-            Aircraft aircraft = AircraftManager.getAircraftByRegistrationBlocking((String) row.get(FLIGHTS_TABLE_COLUMNS[6]));
 
-            flights.add(new Flight(uuid, flightNumber, departure, arrival, departureTime, arrivalTime, aircraft));
+            return flights;
         });
+    }
 
-        return flights;
+    /**
+     * Stream all flights from the logbook sqlite database to a consumer one at a time, without holding them all in
+     * memory, will block thread it is called from until sql query completion
+     * @param consumer the {@link Executable} to be executed with each {@link Flight} data transfer object read from
+     * the database, it must not query the database itself
+     * @return TRUE if every flight was read, FALSE if an issue occurred reading the flights
+     */
+    public static boolean forEachLoggedFlightBlocking(Executable<Flight> consumer) {
+        return Metrics.time("flights_for_each_nanos", () ->
+                getSQLManager().forEachResult(FlightRowMapper.SELECT + ";", null, new FlightRowMapper(), consumer));
     }
 
     /**
@@ -79,41 +106,129 @@ public class FlightManager {
     }
 
     /**
-     * Get a list of all flights from the logbook sqlite database with the specified flight number, will block thread
-     * it is called from until sql query completion
-     * @param flightNumber the flight number of the flights to find in database, as a string
-     * @return the list of {@link Flight} data transfer objects representing found flights from the database
+     * Get a list of all flights from the logbook sqlite database, will run on the {@link Scheduler scheduler's}
+     * executor
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getLoggedFlightsBlocking()}
      */
     @NotNull
-    public static List<Flight> getLoggedFlightsBlocking(String flightNumber) {
-        List<Flight> flights = new ArrayList<>();
+    public static CompletableFuture<List<Flight>> loggedFlightsAsync() {
+        return loggedFlightsAsync(Scheduler.getInstance().getExecutor());
+    }
 
-        List<Map<Object, Object>> rows = getSQLManager().getRowsInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[1],
-                flightNumber, FLIGHTS_TABLE_COLUMNS);
+    /**
+     * Get a list of all flights from the logbook sqlite database, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getLoggedFlightsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> loggedFlightsAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getLoggedFlightsBlocking, executor);
+    }
 
-        if (rows == null) {
-            return flights;
-        }
+    /**
+     * Get a page of flights from the logbook sqlite database ordered by departure time, will block thread it is called
+     * from until sql query completion. Pages are read by seeking the (departure time, uuid) index to the last flight of
+     * the previous page, so reading a page costs the same no matter how deep into the logbook it is
+     * @param afterDepartureTime the departure time, in epoch millis, of the last flight of the previous page, or null
+     * to read the first page
+     * @param afterUuid the {@link UUID uuid} of the last flight of the previous page, or null to read the first page
+     * @param limit the maximum number of flights in the page
+     * @param direction the {@link PageDirection direction} to read the flights in
+     * @return the list of {@link Flight} data transfer objects in the page, empty if there are no more flights
+     */
+    @NotNull
+    public static List<Flight> getFlightsPageBlocking(Long afterDepartureTime, UUID afterUuid, int limit,
+                                                      @NotNull PageDirection direction) {
+        return Metrics.time("flights_get_page_nanos", () -> {
+            String order = direction == PageDirection.ASCENDING ? "ASC" : "DESC";
+            String departureTime = "f." + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[4]);
+            String uuid = "f." + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[0]);
+
+            Map<Integer, Object> params = new HashMap<>();
+            StringBuilder query = new StringBuilder(FlightRowMapper.SELECT);
 
-        for (Map<Object, Object> row : rows) {
-            UUID uuid;
-            try {
-                uuid = UUID.fromString((String) row.get(FLIGHTS_TABLE_COLUMNS[0]));
-            } catch (IllegalArgumentException e) {
-                continue;
+            if (afterDepartureTime != null && afterUuid != null) {
+                query.append(" WHERE (").append(departureTime).append(", ").append(uuid).append(")")
+                        .append(direction == PageDirection.ASCENDING ? " > " : " < ").append("(?, ?)");
+                params.put(1, afterDepartureTime);
+                params.put(2, uuidKey(afterUuid));
             }
-            String departure = (String) row.get(FLIGHTS_TABLE_COLUMNS[2]);
-            String arrival = (String) row.get(FLIGHTS_TABLE_COLUMNS[3]);
-            long departureTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[4]);
-            long arrivalTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[5]);
-            String aircraftId = (String) row.get(FLIGHTS_TABLE_COLUMNS[6]);
 
-            Aircraft aircraft = AircraftManager.getAircraftByRegistrationBlocking(aircraftId);
+            query.append(" ORDER BY ").append(departureTime).append(" ").append(order).append(", ")
+                    .append(uuid).append(" ").append(order).append(" LIMIT ?;");
+            params.put(params.size() + 1, Math.max(0, limit));
 
-            flights.add(new Flight(uuid, flightNumber, departure, arrival, departureTime, arrivalTime, aircraft));
-        }
+            return getSQLManager().query(query.toString(), params, new FlightRowMapper());
+        });
+    }
 
-        return flights;
+    /**
+     * Get a page of flights from the logbook sqlite database ordered by departure time, will run in a separate,
+     * asynchronous thread
+     * @param afterDepartureTime the departure time, in epoch millis, of the last flight of the previous page, or null
+     * to read the first page
+     * @param afterUuid the {@link UUID uuid} of the last flight of the previous page, or null to read the first page
+     * @param limit the maximum number of flights in the page
+     * @param direction the {@link PageDirection direction} to read the flights in
+     * @param callback the {@link Executable} to be executed with the retrieved page of {@link Flight} data transfer
+     * objects, see return options of {@link #getFlightsPageBlocking(Long, UUID, int, PageDirection)}
+     */
+    public static void getFlightsPage(Long afterDepartureTime, UUID afterUuid, int limit, PageDirection direction,
+                                      Executable<List<Flight>> callback) {
+        runAsynchronously(() ->
+                callback.execute(getFlightsPageBlocking(afterDepartureTime, afterUuid, limit, direction)));
+    }
+
+    /**
+     * Get a page of flights from the logbook sqlite database ordered by departure time, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @param afterDepartureTime the departure time, in epoch millis, of the last flight of the previous page, or null
+     * to read the first page
+     * @param afterUuid the {@link UUID uuid} of the last flight of the previous page, or null to read the first page
+     * @param limit the maximum number of flights in the page
+     * @param direction the {@link PageDirection direction} to read the flights in
+     * @return a future completed with the page of {@link Flight} data transfer objects, see return options of
+     * {@link #getFlightsPageBlocking(Long, UUID, int, PageDirection)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> flightsPageAsync(Long afterDepartureTime, UUID afterUuid, int limit,
+                                                                   PageDirection direction) {
+        return flightsPageAsync(afterDepartureTime, afterUuid, limit, direction, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get a page of flights from the logbook sqlite database ordered by departure time, will run on the specified
+     * executor
+     * @param afterDepartureTime the departure time, in epoch millis, of the last flight of the previous page, or null
+     * to read the first page
+     * @param afterUuid the {@link UUID uuid} of the last flight of the previous page, or null to read the first page
+     * @param limit the maximum number of flights in the page
+     * @param direction the {@link PageDirection direction} to read the flights in
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the page of {@link Flight} data transfer objects, see return options of
+     * {@link #getFlightsPageBlocking(Long, UUID, int, PageDirection)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> flightsPageAsync(Long afterDepartureTime, UUID afterUuid, int limit,
+                                                                   PageDirection direction, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getFlightsPageBlocking(afterDepartureTime, afterUuid, limit,
+                direction), executor);
+    }
+
+    /**
+     * Get a list of all flights from the logbook sqlite database with the specified flight number, will block thread
+     * it is called from until sql query completion
+     * @param flightNumber the flight number of the flights to find in database, as a string
+     * @return the list of {@link Flight} data transfer objects representing found flights from the database
+     */
+    @NotNull
+    public static List<Flight> getLoggedFlightsBlocking(String flightNumber) {
+        return Metrics.time("flights_get_by_flight_number_nanos", () ->
+                getSQLManager().query(FlightRowMapper.SELECT + " WHERE f."
+                        + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[1]) + " = ?;",
+                        Collections.singletonMap(1, flightNumber), new FlightRowMapper()));
     }
 
     /**
@@ -130,6 +245,31 @@ public class FlightManager {
         });
     }
 
+    /**
+     * Get a list of all logged flights from the logbook sqlite database with the specified flight number, will run on
+     * the {@link Scheduler scheduler's} executor
+     * @param flightNumber the flight number of the logged flights to find in the database, as a string
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getLoggedFlightsBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> loggedFlightsByNumberAsync(String flightNumber) {
+        return loggedFlightsByNumberAsync(flightNumber, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get a list of all logged flights from the logbook sqlite database with the specified flight number, will run on
+     * the specified executor
+     * @param flightNumber the flight number of the logged flights to find in the database, as a string
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getLoggedFlightsBlocking(String)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> loggedFlightsByNumberAsync(String flightNumber, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getLoggedFlightsBlocking(flightNumber), executor);
+    }
+
     /**
      * Get a logged flight from the logbook sqlite database, will block thread it is called from until sql query
      * completion
@@ -138,25 +278,13 @@ public class FlightManager {
      */
     @Nullable
     public static Flight getLoggedFlightBlocking(UUID uuid) {
-        List<Map<Object, Object>> rows = getSQLManager().getRowsInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0],
-                uuid.toString(), FLIGHTS_TABLE_COLUMNS);
-
-        if (rows == null || rows.isEmpty()) {
-            return null;
-        }
-
-        Map<Object, Object> row = rows.get(0);
+        return Metrics.time("flights_get_by_uuid_nanos", () -> {
+            List<Flight> flights = getSQLManager().query(FlightRowMapper.SELECT + " WHERE f."
+                    + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[0]) + " = ?;",
+                    Collections.singletonMap(1, uuidKey(uuid)), new FlightRowMapper());
 
-        String flightNumber = (String) row.get(FLIGHTS_TABLE_COLUMNS[1]);
-        String departure = (String) row.get(FLIGHTS_TABLE_COLUMNS[2]);
-        String arrival = (String) row.get(FLIGHTS_TABLE_COLUMNS[3]);
-        long departureTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[4]);
-        long arrivalTime = (long) row.get(FLIGHTS_TABLE_COLUMNS[5]);
-        String aircraftId = (String) row.get(FLIGHTS_TABLE_COLUMNS[6]);
-
-        Aircraft aircraft = AircraftManager.getAircraftByRegistrationBlocking(aircraftId);
-
-        return new Flight(uuid, flightNumber, departure, arrival, departureTime, arrivalTime, aircraft);
+            return flights.isEmpty() ? null : flights.get(0);
+        });
     }
 
     /**
@@ -172,6 +300,29 @@ public class FlightManager {
         });
     }
 
+    /**
+     * Get a logged flight from the logbook sqlite database, will run on the {@link Scheduler scheduler's} executor
+     * @param uuid the {@link UUID uuid} of the logged flight to find in database
+     * @return a future completed with the {@link Flight} data transfer object, see return options of
+     * {@link #getLoggedFlightBlocking(UUID)}
+     */
+    @NotNull
+    public static CompletableFuture<Flight> loggedFlightAsync(UUID uuid) {
+        return loggedFlightAsync(uuid, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get a logged flight from the logbook sqlite database, will run on the specified executor
+     * @param uuid the {@link UUID uuid} of the logged flight to find in database
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link Flight} data transfer object, see return options of
+     * {@link #getLoggedFlightBlocking(UUID)}
+     */
+    @NotNull
+    public static CompletableFuture<Flight> loggedFlightAsync(UUID uuid, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getLoggedFlightBlocking(uuid), executor);
+    }
+
     /**
      * Add a logged flight to the logbook sqlite database, will block thread it is called from until sql query
      * completion
@@ -180,32 +331,183 @@ public class FlightManager {
      * insertion
      */
     public static boolean addFlightBlocking(Flight flight) {
-        Map<String, Object> vals = new HashMap<>();
-
-        vals.put(FLIGHTS_TABLE_COLUMNS[1], flight.flightNumber());
-        vals.put(FLIGHTS_TABLE_COLUMNS[2], flight.departure());
-        vals.put(FLIGHTS_TABLE_COLUMNS[3], flight.arrival());
-        vals.put(FLIGHTS_TABLE_COLUMNS[4], flight.departureTimeMillis());
-        vals.put(FLIGHTS_TABLE_COLUMNS[5], flight.arrivalTimeMillis());
-        vals.put(FLIGHTS_TABLE_COLUMNS[6], flight.aircraft().registration());
-
-        return getSQLManager().setRowInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0], 
-                flight.uuid().toString(), vals);
+        return Metrics.time("flights_add_nanos", () ->
+                getSQLManager().setRowInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0],
+                        uuidKey(flight.uuid()), toRow(flight)));
     }
 
     /**
-     * Add a logged flight to the logbook sqlite database, will run in a separate, asynchronous thread
+     * Add a logged flight to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
      * @param flight the {@link Flight} data transfer object containing all necessary data to store in the database
      * @param callback the {@link Executable} to be executed with the boolean response of whether the flight was
      * successfully inserted into the database, see return options of {@link #addFlightBlocking(Flight)}
      */
     public static void addFlight(Flight flight, Executable<Boolean> callback) {
-        runAsynchronously(() -> {
-            boolean res = addFlightBlocking(flight);
-            callback.execute(res);
+        queueWrite(conn -> addFlightBlocking(flight), callback);
+    }
+
+    /**
+     * Add a logged flight to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param flight the {@link Flight} data transfer object containing all necessary data to store in the database
+     * @return a future completed, on the writer thread, with whether the logged flight was inserted once it has been
+     * committed, see return options of {@link #addFlightBlocking(Flight)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> addFlightAsync(Flight flight) {
+        return queueWrite(conn -> addFlightBlocking(flight));
+    }
+
+    /**
+     * Add a logged flight to the logbook sqlite database, will be queued and committed together with other writes by the
+     * {@link WriteBehindQueue write queue}
+     * @param flight the {@link Flight} data transfer object containing all necessary data to store in the database
+     * @param executor the {@link Executor} to complete the future on
+     * @return a future completed with whether the logged flight was inserted once it has been committed, see return
+     * options of {@link #addFlightBlocking(Flight)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> addFlightAsync(Flight flight, Executor executor) {
+        return addFlightAsync(flight).thenApplyAsync(res -> res, executor);
+    }
+
+    /**
+     * Add multiple logged flights to the logbook sqlite database in a single transaction, will block thread it is
+     * called from until sql query completion
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @return the {@link BatchResult} of the insertion, recording the uuids of any flights that could not be inserted
+     */
+    @NotNull
+    public static BatchResult addFlightsBlocking(Collection<Flight> flights) {
+        return Metrics.time("flights_add_batch_nanos", () -> {
+            // Blob uuids cannot key the rows of setRowsInTable, so each flight is set under its encoded uuid in one
+            // transaction, and reported in the result by the string form of its uuid
+            BatchResult res = new BatchResult(flights.size());
+            Boolean written = getSQLManager().inTransaction(conn -> {
+                for (Flight flight : flights) {
+                    if (!getSQLManager().setRowInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0],
+                            uuidKey(flight.uuid()), toRow(flight))) {
+                        res.addFailure(flight.uuid().toString(), "The flight could not be written");
+                    }
+                }
+                return true;
+            });
+
+            if (written == null) {
+                res.failAll(flights.stream().map(flight -> flight.uuid().toString()).collect(Collectors.toList()),
+                        "The transaction was rolled back");
+            }
+            return res;
         });
     }
 
+    /**
+     * Add multiple logged flights to the logbook sqlite database in a single transaction, will run in a separate,
+     * asynchronous thread
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @param callback the {@link Executable} to be executed with the {@link BatchResult} of the insertion, see return
+     * options of {@link #addFlightsBlocking(Collection)}
+     */
+    public static void addFlights(Collection<Flight> flights, Executable<BatchResult> callback) {
+        runAsynchronously(() ->
+                callback.execute(addFlightsBlocking(flights)));
+    }
+
+    /**
+     * Add multiple logged flights to the logbook sqlite database in a single transaction, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @return a future completed with the {@link BatchResult} of the insertion, see return options of
+     * {@link #addFlightsBlocking(Collection<Flight>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> addFlightsAsync(Collection<Flight> flights) {
+        return addFlightsAsync(flights, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Add multiple logged flights to the logbook sqlite database in a single transaction, will run on the specified
+     * executor
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link BatchResult} of the insertion, see return options of
+     * {@link #addFlightsBlocking(Collection<Flight>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> addFlightsAsync(Collection<Flight> flights, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> addFlightsBlocking(flights), executor);
+    }
+
+    /**
+     * Import logged flights, together with the aircraft they were flown with, into the logbook sqlite database in a
+     * single transaction, so that no flight is stored without its aircraft, will block thread it is called from until
+     * sql query completion
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @return the {@link BatchResult} of the insertion of the flights, if any aircraft could not be stored every
+     * flight is recorded as failed and nothing is imported
+     */
+    @NotNull
+    public static BatchResult importFlightsBlocking(Collection<Flight> flights) {
+        return Metrics.time("flights_import_nanos", () -> {
+            Map<String, Aircraft> aircraft = new LinkedHashMap<>();
+            flights.stream().map(Flight::aircraft).filter(Objects::nonNull)
+                    .forEach(a -> aircraft.putIfAbsent(a.registration(), a));
+
+            BatchResult res = getSQLManager().inTransaction(conn -> {
+                BatchResult aircraftResult = AircraftManager.addAircraftBlocking(aircraft.values());
+                if (!aircraftResult.isSuccessful()) {
+                    throw new SQLException("Could not import aircraft: " + aircraftResult);
+                }
+                return addFlightsBlocking(flights);
+            });
+
+            if (res == null) {
+                res = new BatchResult(flights.size());
+                res.failAll(flights.stream().map(flight -> flight.uuid().toString()).collect(Collectors.toList()),
+                        "The import was rolled back");
+            }
+            return res;
+        });
+    }
+
+    /**
+     * Import logged flights, together with the aircraft they were flown with, into the logbook sqlite database in a
+     * single transaction, will run in a separate, asynchronous thread
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @param callback the {@link Executable} to be executed with the {@link BatchResult} of the import, see return
+     * options of {@link #importFlightsBlocking(Collection)}
+     */
+    public static void importFlights(Collection<Flight> flights, Executable<BatchResult> callback) {
+        runAsynchronously(() ->
+                callback.execute(importFlightsBlocking(flights)));
+    }
+
+    /**
+     * Import logged flights, together with the aircraft they were flown with, into the logbook sqlite database in a
+     * single transaction, will run on the {@link Scheduler scheduler's} executor
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @return a future completed with the {@link BatchResult} of the import, see return options of
+     * {@link #importFlightsBlocking(Collection<Flight>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> importFlightsAsync(Collection<Flight> flights) {
+        return importFlightsAsync(flights, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Import logged flights, together with the aircraft they were flown with, into the logbook sqlite database in a
+     * single transaction, will run on the specified executor
+     * @param flights the {@link Flight} data transfer objects containing all necessary data to store in the database
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link BatchResult} of the import, see return options of
+     * {@link #importFlightsBlocking(Collection<Flight>)}
+     */
+    @NotNull
+    public static CompletableFuture<BatchResult> importFlightsAsync(Collection<Flight> flights, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> importFlightsBlocking(flights), executor);
+    }
+
     /**
      * Remove a logged flight from the logbook sqlite database, will block thread it is called from until sql query
      * completion
@@ -214,20 +516,44 @@ public class FlightManager {
      * deletion
      */
     public static boolean removeFlightBlocking(UUID uuid) {
-        return getSQLManager().deleteRowInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0], uuid.toString());
+        return Metrics.time("flights_remove_nanos", () ->
+                getSQLManager().deleteRowInTable(FLIGHTS_TABLE, FLIGHTS_TABLE_COLUMNS[0], uuidKey(uuid)));
     }
 
     /**
-     * Remove a logged flight from the logbook sqlite database, will run in a separate, asynchronous thread
+     * Remove a logged flight from the logbook sqlite database, will be queued and committed together with other writes
+     * by the {@link WriteBehindQueue write queue}
      * @param uuid the {@link UUID uuid} of the logged flight to find and delete from the database
      * @param callback the {@link Executable} to be executed with the boolean response of whether the logged flight was
      * successfully removed from the database, see return options of {@link #removeFlightBlocking(UUID)}
      */
     public static void removeFlight(UUID uuid, Executable<Boolean> callback) {
-        runAsynchronously(() -> {
-            boolean res = removeFlightBlocking(uuid);
-            callback.execute(res);
-        });
+        queueWrite(conn -> removeFlightBlocking(uuid), callback);
+    }
+
+    /**
+     * Remove a logged flight from the logbook sqlite database, will be queued and committed together with other writes
+     * by the {@link WriteBehindQueue write queue}
+     * @param uuid the {@link UUID uuid} of the logged flight to find and delete from the database
+     * @return a future completed, on the writer thread, with whether the logged flight was removed once it has been
+     * committed, see return options of {@link #removeFlightBlocking(UUID)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> removeFlightAsync(UUID uuid) {
+        return queueWrite(conn -> removeFlightBlocking(uuid));
+    }
+
+    /**
+     * Remove a logged flight from the logbook sqlite database, will be queued and committed together with other writes
+     * by the {@link WriteBehindQueue write queue}
+     * @param uuid the {@link UUID uuid} of the logged flight to find and delete from the database
+     * @param executor the {@link Executor} to complete the future on
+     * @return a future completed with whether the logged flight was removed once it has been committed, see return
+     * options of {@link #removeFlightBlocking(UUID)}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> removeFlightAsync(UUID uuid, Executor executor) {
+        return removeFlightAsync(uuid).thenApplyAsync(res -> res, executor);
     }
 
     /**
@@ -237,10 +563,8 @@ public class FlightManager {
      */
     @NotNull
     public static Duration getTotalFlightTimeBlocking() {
-        List<Duration> durations = getLoggedFlightsBlocking().stream()
-                .map(Flight::getFlightTime)
-                .toList();
-        return DurationUtility.sum(durations);
+        return Metrics.time("flights_get_total_flight_time_nanos", () ->
+                Duration.ofMillis(getTotalFlightTimeMillisBlocking()));
     }
 
     /**
@@ -253,22 +577,119 @@ public class FlightManager {
                 callback.execute(getTotalFlightTimeBlocking()));
     }
 
+    /**
+     * Get the total logged flight time across all logged flights from the logbook sqlite database, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @return a future completed with the total logged flight time, see return options of
+     * {@link #getTotalFlightTimeBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Duration> totalFlightTimeAsync() {
+        return totalFlightTimeAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the total logged flight time across all logged flights from the logbook sqlite database, will run on the
+     * specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the total logged flight time, see return options of
+     * {@link #getTotalFlightTimeBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Duration> totalFlightTimeAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getTotalFlightTimeBlocking, executor);
+    }
+
+    /**
+     * Get the top logged flights by a metric from the logbook sqlite database, will block thread it is called from
+     * until sql query completion. The flights are read in order from the index on the metric and reading stops after
+     * the last one, so only the flights returned are ever held in memory, however many flights are logged
+     * @param metric the {@link FlightMetric metric} to rank the flights by
+     * @param k the maximum number of flights to get
+     * @return the list of {@link Flight} data transfer objects, ranked by the metric, empty if there are no flights or
+     * an issue occurred reading them
+     */
+    @NotNull
+    public static List<Flight> getTopFlightsByBlocking(@NotNull FlightMetric metric, int k) {
+        return getTopFlightsByBlocking(metric, k, false);
+    }
+
+    // Flights read inside a transaction or snapshot do not hold their aircraft in the registry
+    @NotNull
+    private static List<Flight> getTopFlightsByBlocking(@NotNull FlightMetric metric, int k, boolean inSnapshot) {
+        return Metrics.time("flights_get_top_nanos", () -> {
+            String uuid = "f." + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[0]);
+            String departureTime = "f." + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[4]);
+            String arrivalTime = "f." + SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[5]);
+
+            // Each order matches an index exactly, uuid included, so ties are broken the same way on every read
+            String order = switch (metric) {
+                case DURATION -> "(" + arrivalTime + " - " + departureTime + ") DESC, " + uuid + " DESC";
+                case MOST_RECENT -> departureTime + " DESC, " + uuid + " DESC";
+                case EARLIEST -> departureTime + " ASC, " + uuid + " ASC";
+            };
+
+            return getSQLManager().query(FlightRowMapper.SELECT + " ORDER BY " + order + " LIMIT ?;",
+                    Collections.singletonMap(1, Math.max(0, k)), new FlightRowMapper(inSnapshot));
+        });
+    }
+
+    /**
+     * Get the top logged flights by a metric from the logbook sqlite database, will run in a separate, asynchronous
+     * thread
+     * @param metric the {@link FlightMetric metric} to rank the flights by
+     * @param k the maximum number of flights to get
+     * @param callback the {@link Executable} to be executed with the retrieved list of {@link Flight} data transfer
+     * objects, see return options of {@link #getTopFlightsByBlocking(FlightMetric, int)}
+     */
+    public static void getTopFlightsBy(FlightMetric metric, int k, Executable<List<Flight>> callback) {
+        runAsynchronously(() ->
+                callback.execute(getTopFlightsByBlocking(metric, k)));
+    }
+
+    /**
+     * Get the top logged flights by a metric from the logbook sqlite database, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @param metric the {@link FlightMetric metric} to rank the flights by
+     * @param k the maximum number of flights to get
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getTopFlightsByBlocking(FlightMetric, int)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> topFlightsByAsync(FlightMetric metric, int k) {
+        return topFlightsByAsync(metric, k, Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the top logged flights by a metric from the logbook sqlite database, will run on the specified executor
+     * @param metric the {@link FlightMetric metric} to rank the flights by
+     * @param k the maximum number of flights to get
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the list of {@link Flight} data transfer objects, see return options of
+     * {@link #getTopFlightsByBlocking(FlightMetric, int)}
+     */
+    @NotNull
+    public static CompletableFuture<List<Flight>> topFlightsByAsync(FlightMetric metric, int k, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getTopFlightsByBlocking(metric, k), executor);
+    }
+
     /**
      * Get the longest logged flight from the logbook sqlite database, will block thread it is called from until sql
      * query completion
      * @return the {@link Flight} data transfer object representing the retrieved logged flight from the database
      */
+    @Nullable
     public static Flight getLongestFlightBlocking() {
-        List<Flight> flights = getLoggedFlightsBlocking();
-
-        if (flights.isEmpty()) {
-            return null;
-        }
-
-        flights.sort((lhs, rhs) ->
-                DurationUtility.compare(lhs.getFlightTime(), rhs.getFlightTime()));
+        return getLongestFlightBlocking(false);
+    }
 
-        return flights.get(0);
+    // The longest flight, read inside the statistics snapshot or on its own
+    @Nullable
+    private static Flight getLongestFlightBlocking(boolean inSnapshot) {
+        return Metrics.time("flights_get_longest_nanos", () -> {
+            List<Flight> longest = getTopFlightsByBlocking(FlightMetric.DURATION, 1, inSnapshot);
+            return longest.isEmpty() ? null : longest.get(0);
+        });
     }
 
     /**
@@ -282,12 +703,35 @@ public class FlightManager {
                 callback.execute(getLongestFlightBlocking()));
     }
 
+    /**
+     * Get the longest logged flight from the logbook sqlite database, will run on the {@link Scheduler scheduler's}
+     * executor
+     * @return a future completed with the {@link Flight} data transfer object, see return options of
+     * {@link #getLongestFlightBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Flight> longestFlightAsync() {
+        return longestFlightAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the longest logged flight from the logbook sqlite database, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the {@link Flight} data transfer object, see return options of
+     * {@link #getLongestFlightBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Flight> longestFlightAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getLongestFlightBlocking, executor);
+    }
+
     /**
      * Get the total number of logged flights
      * @return the total number of logged flights, as an integer
      */
     public static int getTotalNumberOfFlightsBlocking() {
-        return getSQLManager().getRowCount(FLIGHTS_TABLE);
+        return Metrics.time("flights_get_count_nanos", () ->
+                getSQLManager().getRowCount(FLIGHTS_TABLE));
     }
 
     /**
@@ -299,15 +743,34 @@ public class FlightManager {
                 callback.execute(getTotalNumberOfFlightsBlocking()));
     }
 
+    /**
+     * Get the total number of logged flights, will run on the {@link Scheduler scheduler's} executor
+     * @return a future completed with the total number of logged flights, see return options of
+     * {@link #getTotalNumberOfFlightsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Integer> totalNumberOfFlightsAsync() {
+        return totalNumberOfFlightsAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the total number of logged flights, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the total number of logged flights, see return options of
+     * {@link #getTotalNumberOfFlightsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Integer> totalNumberOfFlightsAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getTotalNumberOfFlightsBlocking, executor);
+    }
+
     /**
      * Get the most frequent departure airport
      * @return the most frequent departure airport, as a string
      */
     public static String getMostFrequentDepartureBlocking() {
-        List<Object> deps = getSQLManager().getColumnInTable(FlightManager.FLIGHTS_TABLE, FlightManager.FLIGHTS_TABLE_COLUMNS[2],
-                "GROUP BY `dep` ORDER BY COUNT(`dep`) DESC");
-
-        return deps.isEmpty() ? null : (String) deps.get(0);
+        return Metrics.time("flights_get_most_frequent_departure_nanos", () ->
+                getMostFrequentAirportBlocking(LogbookStats.DEPARTURES_COLUMN));
     }
 
     /**
@@ -318,15 +781,34 @@ public class FlightManager {
         runAsynchronously(() -> callback.execute(getMostFrequentDepartureBlocking()));
     }
 
+    /**
+     * Get the most frequent departure airport, will run on the {@link Scheduler scheduler's} executor
+     * @return a future completed with the most frequent departure airport, see return options of
+     * {@link #getMostFrequentDepartureBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<String> mostFrequentDepartureAsync() {
+        return mostFrequentDepartureAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the most frequent departure airport, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the most frequent departure airport, see return options of
+     * {@link #getMostFrequentDepartureBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<String> mostFrequentDepartureAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getMostFrequentDepartureBlocking, executor);
+    }
+
     /**
      * Get the most frequent arrival airport
      * @return the most frequent arrival airport, as a string
      */
     public static String getMostFrequentArrivalBlocking() {
-        List<Object> arrs = getSQLManager().getColumnInTable(FlightManager.FLIGHTS_TABLE, FlightManager.FLIGHTS_TABLE_COLUMNS[3],
-                "GROUP BY `arr` ORDER BY COUNT(`arr`) DESC");
-
-        return arrs.isEmpty() ? null : (String) arrs.get(0);
+        return Metrics.time("flights_get_most_frequent_arrival_nanos", () ->
+                getMostFrequentAirportBlocking(LogbookStats.ARRIVALS_COLUMN));
     }
 
     /**
@@ -337,6 +819,247 @@ public class FlightManager {
         runAsynchronously(() -> callback.execute(getMostFrequentArrivalBlocking()));
     }
 
+    /**
+     * Get the most frequent arrival airport, will run on the {@link Scheduler scheduler's} executor
+     * @return a future completed with the most frequent arrival airport, see return options of
+     * {@link #getMostFrequentArrivalBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<String> mostFrequentArrivalAsync() {
+        return mostFrequentArrivalAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the most frequent arrival airport, will run on the specified executor
+     * @param executor the {@link Executor} to run the query on
+     * @return a future completed with the most frequent arrival airport, see return options of
+     * {@link #getMostFrequentArrivalBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<String> mostFrequentArrivalAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getMostFrequentArrivalBlocking, executor);
+    }
+
+    /**
+     * Get the statistics of the logbook, all read from one consistent snapshot of the logbook sqlite database so that
+     * they agree with each other even while flights are being written, will block thread it is called from until sql
+     * query completion
+     * @return the {@link LogbookStatistics} data transfer object, or null if the snapshot could not be taken
+     */
+    @Nullable
+    public static LogbookStatistics getStatisticsBlocking() {
+        return Metrics.time("flights_get_statistics_nanos", () -> getSQLManager().inSnapshot(conn ->
+                new LogbookStatistics(getTotalNumberOfFlightsBlocking(), getTotalFlightTimeBlocking(),
+                        getLongestFlightBlocking(true), AircraftManager.getMostUsedAircraftBlocking(true),
+                        getMostFrequentDepartureBlocking(), getMostFrequentArrivalBlocking())));
+    }
+
+    /**
+     * Get the statistics of the logbook, all read from one consistent snapshot, will run in a separate, asynchronous
+     * thread
+     * @param callback the {@link Executable} to be executed with the {@link LogbookStatistics} data transfer object,
+     * see return options of {@link #getStatisticsBlocking()}
+     */
+    public static void getStatistics(Executable<LogbookStatistics> callback) {
+        runAsynchronously(() ->
+                callback.execute(getStatisticsBlocking()));
+    }
+
+    /**
+     * Get the statistics of the logbook, all read from one consistent snapshot, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @return a future completed with the {@link LogbookStatistics} data transfer object, see return options of
+     * {@link #getStatisticsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<LogbookStatistics> statisticsAsync() {
+        return statisticsAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Get the statistics of the logbook, all read from one consistent snapshot, will run on the specified executor
+     * @param executor the {@link Executor} to run the queries on
+     * @return a future completed with the {@link LogbookStatistics} data transfer object, see return options of
+     * {@link #getStatisticsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<LogbookStatistics> statisticsAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::getStatisticsBlocking, executor);
+    }
+
+    /**
+     * Recompute the statistics summary tables from the flights in the logbook sqlite database in a single transaction,
+     * recovering them should they ever disagree with the flights, will block thread it is called from until sql query
+     * completion. The summaries are otherwise kept up to date as flights are written, so this is only needed for
+     * recovery
+     * @return TRUE if the summaries were rebuilt, FALSE if an issue occurred, in which case they are left as they were
+     */
+    public static boolean rebuildStatisticsBlocking() {
+        return Metrics.time("flights_rebuild_statistics_nanos", () -> getSQLManager().inTransaction(conn -> {
+            LogbookStats.rebuild(conn);
+            return true;
+        }) != null);
+    }
+
+    /**
+     * Recompute the statistics summary tables from the flights in the logbook sqlite database, will run in a separate,
+     * asynchronous thread
+     * @param callback the {@link Executable} to be executed with whether the summaries were rebuilt, see return options
+     * of {@link #rebuildStatisticsBlocking()}
+     */
+    public static void rebuildStatistics(Executable<Boolean> callback) {
+        runAsynchronously(() ->
+                callback.execute(rebuildStatisticsBlocking()));
+    }
+
+    /**
+     * Recompute the statistics summary tables from the flights in the logbook sqlite database, will run on the
+     * {@link Scheduler scheduler's} executor
+     * @return a future completed with whether the summaries were rebuilt, see return options of
+     * {@link #rebuildStatisticsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> rebuildStatisticsAsync() {
+        return rebuildStatisticsAsync(Scheduler.getInstance().getExecutor());
+    }
+
+    /**
+     * Recompute the statistics summary tables from the flights in the logbook sqlite database, will run on the
+     * specified executor
+     * @param executor the {@link Executor} to run the rebuild on
+     * @return a future completed with whether the summaries were rebuilt, see return options of
+     * {@link #rebuildStatisticsBlocking()}
+     */
+    @NotNull
+    public static CompletableFuture<Boolean> rebuildStatisticsAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(FlightManager::rebuildStatisticsBlocking, executor);
+    }
+
+    /**
+     * Get how the flights' uuids are stored in the logbook sqlite database
+     * @return the {@link UuidStorage storage} of the uuids
+     */
+    @NotNull
+    public static UuidStorage getUuidStorage() {
+        return uuidStorage;
+    }
+
+    /**
+     * Store the flights' uuids in the logbook sqlite database in the specified form, converting them if the uuid
+     * column is declared with another storage, will block thread it is called from until sql query completion. The
+     * column only accepts uuids in the storage it is declared with, so its declaration alone tells whether the uuids
+     * must be converted, without reading the flights. It must be called after the schema is migrated and before
+     * flights are read or written, as flights are only encoded in the new form once the conversion has committed
+     * @param storage the {@link UuidStorage storage} to keep the uuids in
+     * @return TRUE if every uuid is stored in the specified form, FALSE if the conversion was rolled back, in which
+     * case the uuids are left as they were
+     */
+    public static boolean setUuidStorageBlocking(@NotNull UuidStorage storage) {
+        return Metrics.time("flights_convert_uuids_nanos", () -> {
+            Boolean converted = getSQLManager().inTransaction(conn -> {
+                if (getDeclaredUuidStorage(conn) == storage) {
+                    return false;
+                }
+                convertUuids(conn, storage);
+                return true;
+            });
+
+            if (converted == null) {
+                System.out.println("Error converting flight uuids to " + storage.getName() + " storage!");
+                return false;
+            }
+            if (converted) {
+                System.out.println("Converted flight uuids to " + storage.getName() + " storage");
+            }
+            uuidStorage = storage;
+            return true;
+        });
+    }
+
+    /**
+     * Rebuild the flights table with its uuid column declared with, and constrained to, the specified storage,
+     * converting every uuid into it. SQLite cannot change the declaration of a column, so the flights are copied into
+     * a new table that then replaces the flights table, and the indexes and triggers of the flights table are
+     * recreated on it. The flights themselves are unchanged, so the tracked row count and statistics summaries still
+     * hold. Must be run inside a transaction
+     * @param conn the writer connection
+     * @param storage the {@link UuidStorage storage} to keep the uuids in
+     * @throws SQLException if the flights could not be copied, or a flight's uuid is not a uuid
+     */
+    static void convertUuids(Connection conn, @NotNull UuidStorage storage) throws SQLException {
+        String flights = SQLUtility.quoteIdentifier(FLIGHTS_TABLE);
+        String converted = SQLUtility.quoteIdentifier(FLIGHTS_TABLE + "_converted");
+        String columns = SQLUtility.selectList(FLIGHTS_TABLE_COLUMNS);
+
+        // Dropping the flights table drops its indexes and triggers, so their definitions are kept to recreate them
+        List<String> definitions = new ArrayList<>();
+        try (PreparedStatement statement = conn.prepareStatement("SELECT `sql` FROM `sqlite_master` WHERE "
+                + "`tbl_name` = ? AND `type` IN ('index', 'trigger') AND `sql` IS NOT NULL;")) {
+            statement.setString(1, FLIGHTS_TABLE);
+            try (ResultSet res = statement.executeQuery()) {
+                while (res.next()) {
+                    definitions.add(res.getString(1));
+                }
+            }
+        }
+
+        StringBuilder create = new StringBuilder("CREATE TABLE " + converted + " (");
+        for (int i = 0; i < FLIGHTS_TABLE_COLUMNS.length; i++) {
+            String column = SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[i]);
+            create.append(column).append(" ")
+                    .append(i == 0 ? storage.getColumnType(column) : FLIGHTS_TABLE_COLUMNTYPES[i]).append(", ");
+        }
+        create.append("PRIMARY KEY (").append(SQLUtility.quoteIdentifier(FLIGHTS_TABLE_COLUMNS[0])).append("));");
+
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate(create.toString());
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(FLIGHTS_TABLE_COLUMNS.length, "?"));
+        try (Statement select = conn.createStatement();
+             ResultSet res = select.executeQuery("SELECT " + columns + " FROM " + flights + ";");
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO " + converted + " (" + columns
+                     + ") VALUES (" + placeholders + ");")) {
+            int batched = 0;
+            while (res.next()) {
+                UUID uuid = UuidStorage.decode(res.getObject(1));
+                if (uuid == null) {
+                    throw new SQLException("Flight uuid is not a uuid: " + res.getObject(1));
+                }
+                insert.setObject(1, storage.encode(uuid));
+                for (int i = 2; i <= FLIGHTS_TABLE_COLUMNS.length; i++) {
+                    insert.setObject(i, res.getObject(i));
+                }
+                insert.addBatch();
+                if (++batched % CONVERSION_BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DROP TABLE " + flights + ";");
+            statement.executeUpdate("ALTER TABLE " + converted + " RENAME TO " + flights + ";");
+            for (String definition : definitions) {
+                statement.executeUpdate(definition);
+            }
+        }
+    }
+
+    // The storage the uuid column of the flights table is declared with, or null if it is declared with none
+    @Nullable
+    private static UuidStorage getDeclaredUuidStorage(Connection conn) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement("SELECT `type` FROM pragma_table_info(?) WHERE "
+                + "`name` = ?;")) {
+            statement.setString(1, FLIGHTS_TABLE);
+            statement.setString(2, FLIGHTS_TABLE_COLUMNS[0]);
+            try (ResultSet res = statement.executeQuery()) {
+                return res.next() ? UuidStorage.getByName(res.getString(1)) : null;
+            }
+        }
+    }
+
     /**
      * Export the logbook sqlite database flights table to a .csv file
      */
@@ -344,6 +1067,38 @@ public class FlightManager {
         SQLUtility.writeTableToCSV(FlightLogbook.getSQL(), FLIGHTS_TABLE);
     }
 
+    private static Map<String, Object> toRow(Flight flight) {
+        Map<String, Object> vals = new HashMap<>();
+
+        vals.put(FLIGHTS_TABLE_COLUMNS[1], flight.flightNumber());
+        vals.put(FLIGHTS_TABLE_COLUMNS[2], flight.departure());
+        vals.put(FLIGHTS_TABLE_COLUMNS[3], flight.arrival());
+        vals.put(FLIGHTS_TABLE_COLUMNS[4], flight.departureTimeMillis());
+        vals.put(FLIGHTS_TABLE_COLUMNS[5], flight.arrivalTimeMillis());
+        vals.put(FLIGHTS_TABLE_COLUMNS[6], flight.aircraft().registration());
+
+        return vals;
+    }
+
+    private static Object uuidKey(UUID uuid) {
+        return uuidStorage.encode(uuid);
+    }
+
+    // Read the total flight time, in millis, from the single row of logbook totals, 0 if it could not be read
+    private static long getTotalFlightTimeMillisBlocking() {
+        List<Object> totals = getSQLManager().getColumnInTable(LogbookStats.STATS_TABLE,
+                LogbookStats.FLIGHT_TIME_COLUMN);
+        return totals.isEmpty() || totals.get(0) == null ? 0 : ((Number) totals.get(0)).longValue();
+    }
+
+    // The airport with the most departures or arrivals, the last entry of the index on the count, null if none
+    private static String getMostFrequentAirportBlocking(String countColumn) {
+        String count = SQLUtility.quoteIdentifier(countColumn);
+        List<Object> airports = getSQLManager().getColumnInTable(LogbookStats.AIRPORT_STATS_TABLE,
+                LogbookStats.AIRPORT_COLUMN, "WHERE " + count + " > 0 ORDER BY " + count + " DESC LIMIT 1");
+        return airports.isEmpty() ? null : (String) airports.get(0);
+    }
+
     private static SQLManager getSQLManager() {
         return FlightLogbook.getSQL().getManager();
     }
@@ -351,4 +1106,14 @@ public class FlightManager {
     private static void runAsynchronously(Runnable runnable) {
         Scheduler.getInstance().runTaskAsynchronously(runnable);
     }
+
+    private static <T> CompletableFuture<T> queueWrite(SQLManager.SQLExecutable<T> write) {
+        return FlightLogbook.getSQL().getWriteQueue().submit(write);
+    }
+
+    private static void queueWrite(SQLManager.SQLExecutable<Boolean> write, Executable<Boolean> callback) {
+        // The callback runs off the writer thread, so that it cannot hold up the next group commit
+        queueWrite(write).exceptionally(e -> false)
+                .thenAcceptAsync(callback::execute, Scheduler.getInstance().getExecutor());
+    }
 }
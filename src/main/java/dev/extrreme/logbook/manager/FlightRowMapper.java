@@ -0,0 +1,98 @@
+package dev.extrreme.logbook.manager;
+
+import dev.extrreme.logbook.dto.Aircraft;
+import dev.extrreme.logbook.dto.Flight;
+import dev.extrreme.logbook.sql.RowMapper;
+import dev.extrreme.logbook.sql.UuidStorage;
+import dev.extrreme.logbook.utils.SQLUtility;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Decodes rows of the flights table, joined with the aircraft each flight was flown with, into {@link Flight} data
+ * transfer objects, so that a flight and its aircraft are read in a single query and a single pass
+ */
+class FlightRowMapper implements RowMapper<Flight> {
+    // The aircraft columns are aliased, as the flights table has a column named aircraft of its own
+    private static final String ALIAS_PREFIX = "aircraft_";
+    private static final String[] COLUMNS = new String[FlightManager.FLIGHTS_TABLE_COLUMNS.length
+            + AircraftManager.AIRCRAFT_TABLE_COLUMNS.length];
+
+    /**
+     * The start of a query selecting the columns read by this mapper, to which a WHERE, ORDER BY or LIMIT clause
+     * on the columns of the flights table, qualified as f, may be appended
+     */
+    static final String SELECT;
+
+    static {
+        String[] flightColumns = FlightManager.FLIGHTS_TABLE_COLUMNS;
+        String[] aircraftColumns = AircraftManager.AIRCRAFT_TABLE_COLUMNS;
+        StringBuilder select = new StringBuilder("SELECT ");
+
+        for (int i = 0; i < flightColumns.length; i++) {
+            COLUMNS[i] = flightColumns[i];
+            select.append(i == 0 ? "" : ", ").append("f.").append(SQLUtility.quoteIdentifier(flightColumns[i]));
+        }
+        for (int i = 0; i < aircraftColumns.length; i++) {
+            COLUMNS[flightColumns.length + i] = ALIAS_PREFIX + aircraftColumns[i];
+            select.append(", a.").append(SQLUtility.quoteIdentifier(aircraftColumns[i])).append(" AS ")
+                    .append(SQLUtility.quoteIdentifier(ALIAS_PREFIX + aircraftColumns[i]));
+        }
+
+        // A LEFT JOIN, so that a flight whose aircraft has been removed is still read, without an aircraft
+        SELECT = select.append(" FROM ").append(SQLUtility.quoteIdentifier(FlightManager.FLIGHTS_TABLE))
+                .append(" AS f LEFT JOIN ").append(SQLUtility.quoteIdentifier(AircraftManager.AIRCRAFT_TABLE))
+                .append(" AS a ON a.").append(SQLUtility.quoteIdentifier(aircraftColumns[0]))
+                .append(" = f.").append(SQLUtility.quoteIdentifier(flightColumns[6])).toString();
+    }
+
+    private final long readStamp;
+
+    /**
+     * Create a mapper for a single read, it must be created before the read's query runs, so that aircraft removed
+     * while the query runs are not held by the aircraft registry
+     */
+    FlightRowMapper() {
+        this(false);
+    }
+
+    /**
+     * Create a mapper for a single read, it must be created before the read's query runs, so that aircraft removed
+     * while the query runs are not held by the aircraft registry
+     * @param inSnapshot whether the read is made inside a transaction or snapshot, see
+     *                   {@link AircraftManager#beginRead(boolean)}
+     */
+    FlightRowMapper(boolean inSnapshot) {
+        this.readStamp = AircraftManager.beginRead(inSnapshot);
+    }
+
+    @NotNull
+    @Override
+    public String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Nullable
+    @Override
+    public Flight map(ResultSet res, int[] indexes) throws SQLException {
+        // Either storage is decoded, so flights read while their uuids are being converted are not lost
+        UUID uuid = UuidStorage.decode(res.getObject(indexes[0]));
+        if (uuid == null) {
+            return null;
+        }
+
+        String flightNumber = res.getString(indexes[1]);
+        String departure = res.getString(indexes[2]);
+        String arrival = res.getString(indexes[3]);
+        long departureTime = res.getLong(indexes[4]);
+        long arrivalTime = res.getLong(indexes[5]);
+        Aircraft aircraft = AircraftManager.intern(
+                AircraftRowMapper.INSTANCE.map(res, indexes, FlightManager.FLIGHTS_TABLE_COLUMNS.length), readStamp);
+
+        return new Flight(uuid, flightNumber, departure, arrival, departureTime, arrivalTime, aircraft);
+    }
+}
@@ -0,0 +1,77 @@
+package dev.extrreme.logbook.manager;
+
+import dev.extrreme.logbook.FlightLogbook;
+import dev.extrreme.logbook.config.ConfigKeys;
+import dev.extrreme.logbook.sql.Migration;
+import dev.extrreme.logbook.sql.SQLManager;
+import dev.extrreme.logbook.sql.SchemaMigrator;
+import dev.extrreme.logbook.sql.UuidStorage;
+import dev.extrreme.logbook.utils.SQLUtility;
+
+/**
+ * The versioned schema of the logbook sqlite database. Migrations are only ever appended, a released migration must
+ * never be changed, as databases that have already applied it will not apply it again
+ */
+public final class LogbookSchema {
+    private LogbookSchema() {}
+
+    /**
+     * Bring the logbook sqlite database up to the latest schema version, creating the tables on first run
+     * @return TRUE if the database is at the latest schema version, FALSE otherwise
+     */
+    public static boolean migrate() {
+        SQLManager manager = FlightLogbook.getSQL().getManager();
+        String flights = FlightManager.FLIGHTS_TABLE;
+        String[] columns = FlightManager.FLIGHTS_TABLE_COLUMNS;
+        UuidStorage configured = UuidStorage.getByName(FlightLogbook.getConfig().getValue(ConfigKeys.SQL_UUID_STORAGE));
+        UuidStorage uuidStorage = configured == null ? UuidStorage.DEFAULT : configured;
+
+        boolean migrated = new SchemaMigrator(manager)
+                // Tables created before the schema was versioned already exist, so every step is IF NOT EXISTS
+                .register(new Migration(1, "Create aircraft and flights tables", conn ->
+                        manager.createTable(AircraftManager.AIRCRAFT_TABLE, AircraftManager.AIRCRAFT_TABLE_COLUMNS,
+                                AircraftManager.AIRCRAFT_TABLE_COLUMNTYPES, "PRIMARY KEY (`registration`)")
+                        && manager.createTable(flights, columns, FlightManager.FLIGHTS_TABLE_COLUMNTYPES,
+                                "PRIMARY KEY (`uuid`)")
+                        && manager.trackRowCount(flights)))
+                // Pages of flights seek on (departuretime, uuid)
+                .register(new Migration(2, "Index flights by departure time", conn ->
+                        manager.createIndex("flights_departuretime_uuid", flights, columns[4], columns[0])))
+                // Flight time per aircraft and removing an aircraft's flights filter on aircraft, flight number lookups
+                // on flightnumber, and the most frequent airports group by dep and arr
+                .register(new Migration(3, "Index flights by aircraft, flight number and airports", conn ->
+                        manager.createIndex("flights_aircraft", flights, columns[6])
+                        && manager.createIndex("flights_flightnumber", flights, columns[1])
+                        && manager.createIndex("flights_dep", flights, columns[2])
+                        && manager.createIndex("flights_arr", flights, columns[3])))
+                // Flight time per aircraft sums arrivaltime - departuretime grouped by aircraft, which this index
+                // covers, so the aggregation never reads the table. It starts with aircraft, so it replaces the index
+                // on aircraft alone
+                .register(new Migration(4, "Index flights by aircraft, covering flight times", conn ->
+                        manager.createIndex("flights_aircraft_times", flights, columns[6], columns[4], columns[5])
+                        && manager.execute("DROP INDEX IF EXISTS `flights_aircraft`;")))
+                // The longest flights are read in order of arrivaltime - departuretime, which an index on the
+                // expression serves without sorting. createIndex only takes columns, so it is created directly
+                .register(new Migration(5, "Index flights by flight time", conn ->
+                        manager.execute("CREATE INDEX IF NOT EXISTS `flights_flighttime_uuid` ON "
+                                + SQLUtility.quoteIdentifier(flights) + " ((" + SQLUtility.quoteIdentifier(columns[5])
+                                + " - " + SQLUtility.quoteIdentifier(columns[4]) + "), "
+                                + SQLUtility.quoteIdentifier(columns[0]) + ");")))
+                // The statistics are read from summary tables maintained by triggers on flights, rather than computed
+                // from every flight
+                .register(new Migration(6, "Create statistics summary tables", conn -> {
+                    LogbookStats.install(conn);
+                    return true;
+                }))
+                // The uuid column was declared TEXT whatever its uuids were stored as, so it is declared again with the
+                // configured storage, and constrained to it, converting every uuid into that storage
+                .register(new Migration(7, "Declare flight uuids with their storage", conn -> {
+                    FlightManager.convertUuids(conn, uuidStorage);
+                    return true;
+                }))
+                .migrate();
+
+        // The storage can be configured again later, which converts the uuids on the next start
+        return migrated && FlightManager.setUuidStorageBlocking(uuidStorage);
+    }
+}
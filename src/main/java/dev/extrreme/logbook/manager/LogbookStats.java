@@ -0,0 +1,153 @@
+package dev.extrreme.logbook.manager;
+
+import dev.extrreme.logbook.utils.SQLUtility;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Maintains summary tables of the logged flights, the total flight time of the logbook and the number of flights and
+ * flight time of each airport and aircraft, kept up to date by triggers on the flights table, so that they change in
+ * the same transaction as the flights they summarize and the statistics are read from a handful of rows rather than
+ * computed from every flight. The number of flights in the logbook is not summarized here, as the row count tracked
+ * for the flights table already holds it
+ */
+final class LogbookStats {
+    static final String STATS_TABLE = "logbook_stats";
+    static final String AIRPORT_STATS_TABLE = "airport_stats";
+    static final String AIRCRAFT_STATS_TABLE = "aircraft_stats";
+
+    static final String FLIGHTS_COLUMN = "flights";
+    static final String FLIGHT_TIME_COLUMN = "flight_time";
+    static final String AIRPORT_COLUMN = "airport";
+    static final String DEPARTURES_COLUMN = "departures";
+    static final String ARRIVALS_COLUMN = "arrivals";
+    static final String REGISTRATION_COLUMN = "registration";
+
+    private static final String ID_COLUMN = "id";
+
+    private static final String FLIGHTS = q(FlightManager.FLIGHTS_TABLE);
+    private static final String DEP = q(FlightManager.FLIGHTS_TABLE_COLUMNS[2]);
+    private static final String ARR = q(FlightManager.FLIGHTS_TABLE_COLUMNS[3]);
+    private static final String DEPARTURE_TIME = q(FlightManager.FLIGHTS_TABLE_COLUMNS[4]);
+    private static final String ARRIVAL_TIME = q(FlightManager.FLIGHTS_TABLE_COLUMNS[5]);
+    private static final String AIRCRAFT = q(FlightManager.FLIGHTS_TABLE_COLUMNS[6]);
+
+    private LogbookStats() {}
+
+    /**
+     * Create the summary tables and the triggers maintaining them if they do not already exist, and fill the tables
+     * from the flights currently logged. Must be run inside a transaction, so the summaries and the triggers are
+     * consistent
+     * @param conn the writer connection
+     */
+    static void install(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + q(STATS_TABLE) + " (" + q(ID_COLUMN)
+                    + " INTEGER PRIMARY KEY CHECK (" + q(ID_COLUMN) + " = 1), " + q(FLIGHT_TIME_COLUMN)
+                    + " INTEGER NOT NULL);");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + q(AIRPORT_STATS_TABLE) + " (" + q(AIRPORT_COLUMN)
+                    + " TEXT NOT NULL PRIMARY KEY, " + q(DEPARTURES_COLUMN) + " INTEGER NOT NULL, "
+                    + q(ARRIVALS_COLUMN) + " INTEGER NOT NULL);");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + q(AIRCRAFT_STATS_TABLE) + " ("
+                    + q(REGISTRATION_COLUMN) + " TEXT NOT NULL PRIMARY KEY, " + q(FLIGHTS_COLUMN)
+                    + " INTEGER NOT NULL, " + q(FLIGHT_TIME_COLUMN) + " INTEGER NOT NULL);");
+
+            // The most frequent airports and the most used aircraft are the first entries of these indexes
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + q(AIRPORT_STATS_TABLE + "_departures") + " ON "
+                    + q(AIRPORT_STATS_TABLE) + " (" + q(DEPARTURES_COLUMN) + ");");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + q(AIRPORT_STATS_TABLE + "_arrivals") + " ON "
+                    + q(AIRPORT_STATS_TABLE) + " (" + q(ARRIVALS_COLUMN) + ");");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + q(AIRCRAFT_STATS_TABLE + "_flight_time") + " ON "
+                    + q(AIRCRAFT_STATS_TABLE) + " (" + q(FLIGHT_TIME_COLUMN) + ");");
+
+            statement.executeUpdate("CREATE TRIGGER IF NOT EXISTS " + q(FlightManager.FLIGHTS_TABLE + "_stats_insert")
+                    + " AFTER INSERT ON " + FLIGHTS + " BEGIN " + add("NEW") + " END;");
+            statement.executeUpdate("CREATE TRIGGER IF NOT EXISTS " + q(FlightManager.FLIGHTS_TABLE + "_stats_delete")
+                    + " AFTER DELETE ON " + FLIGHTS + " BEGIN " + remove("OLD") + " END;");
+            // Only updates setting the summarized columns fire it, so changing nothing but a flight's uuid does not
+            statement.executeUpdate("CREATE TRIGGER IF NOT EXISTS " + q(FlightManager.FLIGHTS_TABLE + "_stats_update")
+                    + " AFTER UPDATE OF " + String.join(", ", DEP, ARR, DEPARTURE_TIME, ARRIVAL_TIME, AIRCRAFT)
+                    + " ON " + FLIGHTS + " BEGIN " + remove("OLD") + " " + add("NEW") + " END;");
+        }
+        rebuild(conn);
+    }
+
+    /**
+     * Recompute the summary tables from the flights currently logged, recovering them should they ever disagree with
+     * the flights. Must be run inside a transaction, so no flight is written while the summaries are being recomputed
+     * @param conn the writer connection
+     */
+    static void rebuild(Connection conn) throws SQLException {
+        String flightTime = "IFNULL(SUM(" + ARRIVAL_TIME + " - " + DEPARTURE_TIME + "), 0)";
+
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DELETE FROM " + q(STATS_TABLE) + ";");
+            statement.executeUpdate("DELETE FROM " + q(AIRPORT_STATS_TABLE) + ";");
+            statement.executeUpdate("DELETE FROM " + q(AIRCRAFT_STATS_TABLE) + ";");
+
+            statement.executeUpdate("INSERT INTO " + q(STATS_TABLE) + " SELECT 1, " + flightTime + " FROM " + FLIGHTS
+                    + ";");
+            statement.executeUpdate("INSERT INTO " + q(AIRPORT_STATS_TABLE) + " SELECT " + q(AIRPORT_COLUMN)
+                    + ", SUM(" + q(DEPARTURES_COLUMN) + "), SUM(" + q(ARRIVALS_COLUMN) + ") FROM (SELECT " + DEP
+                    + " AS " + q(AIRPORT_COLUMN) + ", COUNT(*) AS " + q(DEPARTURES_COLUMN) + ", 0 AS "
+                    + q(ARRIVALS_COLUMN) + " FROM " + FLIGHTS + " WHERE " + DEP + " IS NOT NULL GROUP BY " + DEP
+                    + " UNION ALL SELECT " + ARR + ", 0, COUNT(*) FROM " + FLIGHTS + " WHERE " + ARR
+                    + " IS NOT NULL GROUP BY " + ARR + ") GROUP BY " + q(AIRPORT_COLUMN) + ";");
+            statement.executeUpdate("INSERT INTO " + q(AIRCRAFT_STATS_TABLE) + " SELECT " + AIRCRAFT + ", COUNT(*), "
+                    + flightTime + " FROM " + FLIGHTS + " WHERE " + AIRCRAFT + " IS NOT NULL GROUP BY " + AIRCRAFT
+                    + ";");
+        }
+    }
+
+    // The statements counting a flight, as the trigger row NEW, into the summaries
+    private static String add(String row) {
+        String flightTime = flightTime(row);
+        return "UPDATE " + q(STATS_TABLE) + " SET " + increment(FLIGHT_TIME_COLUMN, flightTime) + "; "
+                + upsert(AIRPORT_STATS_TABLE, AIRPORT_COLUMN, row + "." + DEP, "1, 0",
+                        increment(DEPARTURES_COLUMN, "1"))
+                + upsert(AIRPORT_STATS_TABLE, AIRPORT_COLUMN, row + "." + ARR, "0, 1",
+                        increment(ARRIVALS_COLUMN, "1"))
+                + upsert(AIRCRAFT_STATS_TABLE, REGISTRATION_COLUMN, row + "." + AIRCRAFT, "1, " + flightTime,
+                        increment(FLIGHTS_COLUMN, "1") + ", " + increment(FLIGHT_TIME_COLUMN, flightTime));
+    }
+
+    // The statements taking a flight, as the trigger row OLD, out of the summaries, dropping airports and aircraft
+    // left without flights
+    private static String remove(String row) {
+        String flightTime = flightTime(row);
+        return "UPDATE " + q(STATS_TABLE) + " SET " + increment(FLIGHT_TIME_COLUMN, "-" + flightTime) + "; "
+                + "UPDATE " + q(AIRPORT_STATS_TABLE) + " SET " + increment(DEPARTURES_COLUMN, "-1") + " WHERE "
+                + q(AIRPORT_COLUMN) + " = " + row + "." + DEP + "; "
+                + "UPDATE " + q(AIRPORT_STATS_TABLE) + " SET " + increment(ARRIVALS_COLUMN, "-1") + " WHERE "
+                + q(AIRPORT_COLUMN) + " = " + row + "." + ARR + "; "
+                + "UPDATE " + q(AIRCRAFT_STATS_TABLE) + " SET " + increment(FLIGHTS_COLUMN, "-1") + ", "
+                + increment(FLIGHT_TIME_COLUMN, "-" + flightTime) + " WHERE " + q(REGISTRATION_COLUMN) + " = " + row
+                + "." + AIRCRAFT + "; "
+                + "DELETE FROM " + q(AIRPORT_STATS_TABLE) + " WHERE " + q(AIRPORT_COLUMN) + " IN (" + row + "." + DEP
+                + ", " + row + "." + ARR + ") AND " + q(DEPARTURES_COLUMN) + " = 0 AND " + q(ARRIVALS_COLUMN)
+                + " = 0; "
+                + "DELETE FROM " + q(AIRCRAFT_STATS_TABLE) + " WHERE " + q(REGISTRATION_COLUMN) + " = " + row + "."
+                + AIRCRAFT + " AND " + q(FLIGHTS_COLUMN) + " = 0;";
+    }
+
+    // Insert a summary row for a key, or add to the existing one. Flights without the key are left out, the WHERE
+    // also separates the SELECT from the ON CONFLICT clause
+    private static String upsert(String table, String keyColumn, String key, String values, String update) {
+        return "INSERT INTO " + q(table) + " SELECT " + key + ", " + values + " WHERE " + key + " IS NOT NULL"
+                + " ON CONFLICT (" + q(keyColumn) + ") DO UPDATE SET " + update + "; ";
+    }
+
+    private static String increment(String column, String amount) {
+        return q(column) + " = " + q(column) + " + " + amount;
+    }
+
+    private static String flightTime(String row) {
+        return "IFNULL(" + row + "." + ARRIVAL_TIME + " - " + row + "." + DEPARTURE_TIME + ", 0)";
+    }
+
+    private static String q(String identifier) {
+        return SQLUtility.quoteIdentifier(identifier);
+    }
+}
@@ -0,0 +1,35 @@
+package dev.extrreme.logbook.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, cheap to increment from many threads at once
+ */
+public class Counter {
+    private final LongAdder count = new LongAdder();
+
+    Counter() {}
+
+    /**
+     * Increment the count by one
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Increment the count
+     * @param amount the amount to increment the count by, must not be negative
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Get the current count
+     * @return the count
+     */
+    public long get() {
+        return count.sum();
+    }
+}
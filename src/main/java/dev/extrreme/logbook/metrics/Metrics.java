@@ -0,0 +1,195 @@
+package dev.extrreme.logbook.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process registry of named counters, gauges and histograms, which can be written out as JSON or in the
+ * Prometheus text format. Metric names are lower case words separated by underscores, and latency histograms are
+ * recorded in nanos and named with a _nanos suffix
+ */
+public class Metrics {
+    private static final Metrics instance = new Metrics();
+    private static final Pattern NAME = Pattern.compile("[a-z][a-z0-9_]*");
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {} // Prevent external instantiation
+
+    /**
+     * Get the instance of the {@link Metrics} registry
+     * @return the registry
+     */
+    public static Metrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get a counter, registering it if it does not exist yet
+     * @param name the name of the counter
+     * @return the counter
+     */
+    @NotNull
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(checkName(name), k -> new Counter());
+    }
+
+    /**
+     * Get a histogram, registering it if it does not exist yet
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    @NotNull
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(checkName(name), k -> new Histogram());
+    }
+
+    /**
+     * Register a gauge, whose value is read each time the metrics are written out, replacing any gauge of the same
+     * name
+     * @param name the name of the gauge
+     * @param gauge the supplier of the gauge's current value, it must be cheap and must not block
+     */
+    public void gauge(String name, @NotNull LongSupplier gauge) {
+        gauges.put(checkName(name), gauge);
+    }
+
+    /**
+     * Run a task, recording how long it took in the histogram of the specified name
+     * @param name the name of the histogram
+     * @param task the task
+     * @return the result of the task
+     */
+    public static <T> T time(String name, @NotNull Supplier<T> task) {
+        return instance.histogram(name).time(task);
+    }
+
+    /**
+     * Write the current value of every metric as a JSON object, histograms are written with their count, sum, max and
+     * p50, p99 and p999 quantiles
+     * @return the JSON
+     */
+    @NotNull
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"counters\": {");
+        appendJsonValues(json, snapshotCounters());
+        json.append("},\n  \"gauges\": {");
+        appendJsonValues(json, snapshotGauges());
+        json.append("},\n  \"histograms\": {");
+
+        String separator = "\n";
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {\"count\": ")
+                    .append(histogram.getCount()).append(", \"sum\": ").append(histogram.getSum())
+                    .append(", \"max\": ").append(histogram.getMax());
+            for (double quantile : QUANTILES) {
+                json.append(", \"").append(quantileName(quantile)).append("\": ")
+                        .append(histogram.getQuantile(quantile));
+            }
+            json.append("}");
+            separator = ",\n";
+        }
+        json.append(histograms.isEmpty() ? "" : "\n  ").append("}\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Write the current value of every metric in the Prometheus text exposition format, histograms are written as
+     * summaries with their p50, p99 and p999 quantiles
+     * @return the text
+     */
+    @NotNull
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        snapshotCounters().forEach((name, value) ->
+                text.append("# TYPE ").append(name).append(" counter\n")
+                        .append(name).append(" ").append(value).append("\n"));
+        snapshotGauges().forEach((name, value) ->
+                text.append("# TYPE ").append(name).append(" gauge\n")
+                        .append(name).append(" ").append(value).append("\n"));
+
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            text.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : QUANTILES) {
+                text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getQuantile(quantile)).append("\n");
+            }
+            text.append(name).append("_sum ").append(histogram.getSum()).append("\n");
+            text.append(name).append("_count ").append(histogram.getCount()).append("\n");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the metrics to a file, as JSON if the file's name ends with .json and in the Prometheus text format
+     * otherwise
+     * @param file the file to write to, replacing its contents
+     * @return TRUE if the metrics were written, FALSE otherwise
+     */
+    public boolean writeTo(@NotNull File file) {
+        String contents = file.getName().endsWith(".json") ? toJson() : toPrometheus();
+        try (FileWriter writer = new FileWriter(file, false)) {
+            writer.write(contents);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error writing metrics to " + file + "!");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private TreeMap<String, Long> snapshotCounters() {
+        TreeMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        return values;
+    }
+
+    private TreeMap<String, Long> snapshotGauges() {
+        TreeMap<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> {
+            try {
+                values.put(name, gauge.getAsLong());
+            } catch (RuntimeException ignored) {} // A gauge whose source has gone away is left out
+        });
+        return values;
+    }
+
+    private static void appendJsonValues(StringBuilder json, Map<String, Long> values) {
+        String separator = "\n";
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        if (!values.isEmpty()) {
+            json.append("\n  ");
+        }
+    }
+
+    private static String quantileName(double quantile) {
+        // 0.5 -> p50, 0.99 -> p99, 0.999 -> p999
+        String digits = String.valueOf(quantile).substring(2);
+        return "p" + (digits.length() == 1 ? digits + "0" : digits);
+    }
+
+    private static String checkName(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        return name;
+    }
+}
@@ -1,5 +1,9 @@
 package dev.extrreme.logbook.scheduling;
 
+import dev.extrreme.logbook.metrics.Counter;
+import dev.extrreme.logbook.metrics.Histogram;
+import dev.extrreme.logbook.metrics.Metrics;
+
 import java.util.UUID;
 import java.util.WeakHashMap;
 import java.util.concurrent.*;
@@ -14,6 +18,7 @@ public class Scheduler {
 		System.out.println("Initializing thread pool...");
 		this.repeater = Executors.newScheduledThreadPool(4);
 		this.executor = Executors.newCachedThreadPool();
+		Metrics.getInstance().gauge("scheduler_repeating_tasks", () -> repeatingTasks.size());
 	}
 
 	/**
@@ -34,8 +39,8 @@ public class Scheduler {
 	 */
 	public RepeatingTask runRepeatingAsyncTask(final RepeatingTask task) {
 		repeatingTasks.put(task.getId(), task);
-		task.setFuture(repeater.scheduleWithFixedDelay(task.getRunnable(), task.getInitialDelay(), task.getInterval(),
-				TimeUnit.MILLISECONDS));
+		task.setFuture(repeater.scheduleWithFixedDelay(instrument(task.getRunnable(), "scheduler_repeating_task"),
+				task.getInitialDelay(), task.getInterval(), TimeUnit.MILLISECONDS));
 		return task;
 	}
 
@@ -80,8 +85,45 @@ public class Scheduler {
 	 * @param run the {@link Runnable runnable} to be run asynchronously
 	 */
 	public void runTaskAsynchronously(final Runnable run) {
+		long queued = System.nanoTime();
+		Runnable task = instrument(run, "scheduler_task");
 		// Explicitly make sure task is terminated so threads can close
-		executor.submit(run);
+		executor.submit(() -> {
+			Metrics.getInstance().histogram("scheduler_task_wait_nanos").recordSince(queued);
+			task.run();
+		});
+	}
+
+	/**
+	 * Wrap a task so that its run time and failures are recorded in the {@link Metrics metrics}
+	 * @param run the task
+	 * @param name the prefix of the task's metrics
+	 * @return the wrapped task
+	 */
+	private static Runnable instrument(final Runnable run, final String name) {
+		Metrics metrics = Metrics.getInstance();
+		Histogram runTime = metrics.histogram(name + "_run_nanos");
+		Counter failures = metrics.counter(name + "_failures");
+		return () -> {
+			long start = System.nanoTime();
+			try {
+				run.run();
+			} catch (RuntimeException | Error e) {
+				failures.increment();
+				throw e;
+			} finally {
+				runTime.recordSince(start);
+			}
+		};
+	}
+
+	/**
+	 * Get an executor running tasks as {@link #runTaskAsynchronously(Runnable)} does, so that futures can be computed,
+	 * and their dependent stages run, on the same threads and with the same metrics as other asynchronous tasks
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		return this::runTaskAsynchronously;
 	}
 
 	/**
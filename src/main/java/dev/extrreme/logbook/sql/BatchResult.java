@@ -0,0 +1,81 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of a batched write, recording which rows (identified by their key value) could not be written and why
+ */
+public class BatchResult {
+    private final int attempted;
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    /**
+     * Creates a batch result
+     * @param attempted the number of rows the batch attempted to write
+     */
+    public BatchResult(int attempted) {
+        this.attempted = attempted;
+    }
+
+    /**
+     * Record a row that could not be written
+     * @param key the key value of the row
+     * @param reason the reason the row could not be written
+     */
+    public void addFailure(String key, String reason) {
+        failures.put(key, reason);
+    }
+
+    /**
+     * Record every row in the batch, that has not already failed, as failed, used when the whole batch is rolled back
+     * @param keys the key values of all rows in the batch
+     * @param reason the reason the rows could not be written
+     */
+    public void failAll(Iterable<String> keys, String reason) {
+        for (String key : keys) {
+            failures.putIfAbsent(key, reason);
+        }
+    }
+
+    /**
+     * Get the number of rows the batch attempted to write
+     * @return the number of rows attempted
+     */
+    public int getAttempted() {
+        return attempted;
+    }
+
+    /**
+     * Get the number of rows that were successfully written
+     * @return the number of rows written
+     */
+    public int getSucceeded() {
+        return attempted - failures.size();
+    }
+
+    /**
+     * Get the rows that could not be written
+     * @return an unmodifiable map of the key values of failed rows to the reason they failed
+     */
+    @NotNull
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * Check if every row in the batch was written
+     * @return TRUE if no rows failed, FALSE otherwise
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getSucceeded() + "/" + attempted + " rows written" + (failures.isEmpty() ? "" : ", failed: " + failures);
+    }
+}
@@ -0,0 +1,13 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A single, versioned change to the schema of a database, applied by a {@link SchemaMigrator}
+ * @param version the schema version the database is at once the migration has been applied, versions start at 1 and
+ *                each migration must have a distinct version
+ * @param description a short description of the change, for logging
+ * @param step the change itself, run inside the migration's transaction, returning anything other than TRUE or
+ *             throwing fails the migration and rolls it back
+ */
+public record Migration(int version, @NotNull String description, @NotNull SQLManager.SQLExecutable<Boolean> step) {}
@@ -0,0 +1,189 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements that took longer than a threshold to a rolling log file, together with the shapes of their bound
+ * parameters and their query plans. The first time each distinct statement is run, its plan is also checked for full
+ * scans of large tables, which are logged regardless of how long the statement took, so a missing index shows up
+ * before the table it scans has grown large enough to be noticeably slow
+ */
+public class QueryLog {
+    private static final long MAX_FILE_BYTES = 1_048_576;
+    private static final int MAX_ROLLED_FILES = 3;
+    // A plan step reading every row of a table, rather than seeking or walking one of its indexes
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\S+)(?: AS \\S+)?$");
+
+    private final File file;
+    private final long slowThresholdNanos;
+    private final long scanWarnRows;
+    private final Set<String> checkedStatements = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param file the log file, rolled over to numbered files once it grows past 1 MiB
+     * @param slowThresholdMillis how long a statement must take to be logged, in millis
+     * @param scanWarnRows how many rows a table must have for a full scan of it to be logged
+     */
+    public QueryLog(@NotNull File file, long slowThresholdMillis, long scanWarnRows) {
+        this.file = file;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, slowThresholdMillis));
+        this.scanWarnRows = Math.max(0, scanWarnRows);
+    }
+
+    /**
+     * Get the log file
+     * @return the log file
+     */
+    @NotNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Record a traced task, logging any of its statements that were slow or scan a large table
+     * @param conn the connection the task ran on, used to read the statements' plans
+     * @param trace the statements the task ran
+     * @param elapsedNanos how long the task took, in nanos
+     */
+    void record(Connection conn, Trace trace, long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowThresholdNanos;
+        StringBuilder entry = new StringBuilder();
+
+        for (Map.Entry<String, SortedMap<Integer, String>> statement : trace.statements.entrySet()) {
+            String query = statement.getKey();
+            if (!checkedStatements.add(query) && !slow) {
+                continue;
+            }
+
+            List<String> plan = explain(conn, query);
+            List<String> warnings = new ArrayList<>();
+            for (String step : plan) {
+                Matcher matcher = FULL_SCAN.matcher(step);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long rows = countRows(conn, matcher.group(1));
+                if (rows >= scanWarnRows) {
+                    warnings.add("full scan of " + matcher.group(1) + " (" + rows + " rows)");
+                }
+            }
+            if (!slow && warnings.isEmpty()) {
+                continue;
+            }
+
+            entry.append("    ").append(query).append("\n");
+            entry.append("    parameters: (").append(String.join(", ", statement.getValue().values())).append(")\n");
+            plan.forEach(step -> entry.append("    plan: ").append(step).append("\n"));
+            warnings.forEach(warning -> entry.append("    WARNING: ").append(warning).append("\n"));
+        }
+
+        if (entry.length() == 0) {
+            return;
+        }
+        write("[" + Instant.now() + "] " + (slow ? "SLOW " : "") + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+                + " ms\n" + entry);
+    }
+
+    private static List<String> explain(Connection conn, String query) {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement statement = conn.prepareStatement("EXPLAIN QUERY PLAN " + query)) {
+            // The plan does not depend on the values bound, only on the statement
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setNull(i, Types.NULL);
+            }
+            try (ResultSet res = statement.executeQuery()) {
+                while (res.next()) {
+                    plan.add(res.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("unavailable: " + e.getMessage());
+        }
+        return plan;
+    }
+
+    private static long countRows(Connection conn, String tableName) {
+        try (PreparedStatement statement = conn.prepareStatement(RowCounts.countQuery())) {
+            Long tracked = RowCounts.read(statement, tableName);
+            if (tracked != null) {
+                return tracked;
+            }
+        } catch (SQLException ignored) {} // No table is tracked yet, fall back to counting
+
+        try (PreparedStatement statement = conn.prepareStatement("SELECT COUNT(*) FROM `"
+                + tableName.replace("`", "``") + "`;");
+             ResultSet res = statement.executeQuery()) {
+            return res.next() ? res.getLong(1) : 0;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    private synchronized void write(String entry) {
+        try {
+            if (file.length() > MAX_FILE_BYTES) {
+                roll();
+            }
+            try (FileWriter writer = new FileWriter(file, true)) {
+                writer.write(entry);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing to the SQL query log!");
+            e.printStackTrace();
+        }
+    }
+
+    private void roll() {
+        File oldest = rolledFile(MAX_ROLLED_FILES);
+        if (oldest.exists() && !oldest.delete()) {
+            return;
+        }
+        for (int i = MAX_ROLLED_FILES - 1; i >= 1; i--) {
+            File rolled = rolledFile(i);
+            if (rolled.exists() && !rolled.renameTo(rolledFile(i + 1))) {
+                return;
+            }
+        }
+        if (!file.renameTo(rolledFile(1))) {
+            System.out.println("Error rolling over the SQL query log!");
+        }
+    }
+
+    private File rolledFile(int index) {
+        return new File(file.getParentFile(), file.getName() + "." + index);
+    }
+
+    /**
+     * The statements run by a single task, with the shapes of the parameters last bound to each
+     */
+    static final class Trace {
+        private final Map<String, SortedMap<Integer, String>> statements = new LinkedHashMap<>();
+        private SortedMap<Integer, String> current = null;
+
+        void statement(String query) {
+            current = statements.computeIfAbsent(query, k -> new TreeMap<>());
+        }
+
+        void parameter(int index, Object value) {
+            if (current != null) {
+                current.put(index, value == null ? "null" : value.getClass().getSimpleName());
+            }
+        }
+    }
+}
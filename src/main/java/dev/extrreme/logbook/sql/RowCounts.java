@@ -0,0 +1,100 @@
+package dev.extrreme.logbook.sql;
+
+import dev.extrreme.logbook.utils.SQLUtility;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Maintains the number of rows of tracked tables in a metadata table, kept up to date by insert and delete triggers,
+ * so that counting the rows of a table is a single-row read rather than a scan of the whole table
+ */
+final class RowCounts {
+    static final String ROW_COUNTS_TABLE = "row_counts";
+    private static final String TABLE_COLUMN = "table_name";
+    private static final String COUNT_COLUMN = "row_count";
+
+    private RowCounts() {}
+
+    /**
+     * Start tracking the row count of a table, creating the metadata table and the table's triggers if they do not
+     * already exist and seeding the count from the table's current contents. Must be run inside a transaction, so the
+     * seeded count and the triggers are consistent
+     * @param conn the writer connection
+     * @param tableName the table to track
+     */
+    static void install(Connection conn, String tableName) throws SQLException {
+        String counts = SQLUtility.quoteIdentifier(ROW_COUNTS_TABLE);
+        String table = SQLUtility.quoteIdentifier(tableName);
+        String name = "'" + tableName.replace("'", "''") + "'";
+        String where = " WHERE " + SQLUtility.quoteIdentifier(TABLE_COLUMN) + " = " + name + ";";
+        String count = SQLUtility.quoteIdentifier(COUNT_COLUMN);
+
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + counts + " ("
+                    + SQLUtility.quoteIdentifier(TABLE_COLUMN) + " TEXT PRIMARY KEY, "
+                    + count + " INTEGER NOT NULL);");
+
+            statement.executeUpdate("INSERT OR IGNORE INTO " + counts + " SELECT " + name + ", COUNT(*) FROM "
+                    + table + ";");
+
+            statement.executeUpdate("CREATE TRIGGER IF NOT EXISTS "
+                    + SQLUtility.quoteIdentifier(tableName + "_row_count_insert") + " AFTER INSERT ON " + table
+                    + " BEGIN UPDATE " + counts + " SET " + count + " = " + count + " + 1" + where + " END;");
+            statement.executeUpdate("CREATE TRIGGER IF NOT EXISTS "
+                    + SQLUtility.quoteIdentifier(tableName + "_row_count_delete") + " AFTER DELETE ON " + table
+                    + " BEGIN UPDATE " + counts + " SET " + count + " = " + count + " - 1" + where + " END;");
+        }
+    }
+
+    /**
+     * Stop tracking the row count of a table, used when the table is dropped
+     * @param conn the writer connection
+     * @param tableName the table to stop tracking
+     */
+    static void forget(Connection conn, String tableName) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            ResultSet tables = statement.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '"
+                    + ROW_COUNTS_TABLE + "';");
+            boolean exists = tables.next();
+            tables.close();
+            if (!exists) {
+                return;
+            }
+        }
+
+        try (PreparedStatement statement = conn.prepareStatement("DELETE FROM "
+                + SQLUtility.quoteIdentifier(ROW_COUNTS_TABLE) + " WHERE "
+                + SQLUtility.quoteIdentifier(TABLE_COLUMN) + " = ?;")) {
+            statement.setString(1, tableName);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * The query reading the tracked row count of a table, with the table name as its only parameter
+     */
+    static String countQuery() {
+        return "SELECT " + SQLUtility.quoteIdentifier(COUNT_COLUMN) + " FROM "
+                + SQLUtility.quoteIdentifier(ROW_COUNTS_TABLE) + " WHERE "
+                + SQLUtility.quoteIdentifier(TABLE_COLUMN) + " = ?;";
+    }
+
+    /**
+     * Read the tracked row count of a table
+     * @param statement the prepared {@link #countQuery() count query}
+     * @param tableName the table
+     * @return the number of rows in the table, or null if the table is not tracked
+     */
+    @Nullable
+    static Long read(PreparedStatement statement, String tableName) throws SQLException {
+        statement.setString(1, tableName);
+        try (ResultSet res = statement.executeQuery()) {
+            return res.next() ? res.getLong(1) : null;
+        }
+    }
+}
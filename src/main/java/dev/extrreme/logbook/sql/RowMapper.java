@@ -0,0 +1,32 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Decodes rows of a result set directly into typed objects. The indexes of the columns a mapper reads are resolved
+ * once per query, so each row is read by index with the primitive getters of the result set rather than by name
+ * @param <T> the type of object each row is decoded into
+ */
+public interface RowMapper<T> {
+
+    /**
+     * Get the names of the columns this mapper reads
+     * @return the column names, in the order their indexes are passed to {@link #map(ResultSet, int[])}
+     */
+    @NotNull
+    String[] getColumns();
+
+    /**
+     * Decode the row the result set is currently positioned at
+     * @param res the result set, which must not be moved or closed
+     * @param indexes the result set indexes of the columns returned by {@link #getColumns()}, in the same order
+     * @return the decoded object, or null if the row is invalid and should be skipped
+     * @throws SQLException if a column could not be read
+     */
+    @Nullable
+    T map(ResultSet res, int[] indexes) throws SQLException;
+}
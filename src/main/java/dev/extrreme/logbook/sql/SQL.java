@@ -6,4 +6,6 @@ public interface SQL {
     SQLManager getManager();
     Connection getConnection();
     boolean testConnection();
+    WriteBehindQueue getWriteQueue();
+    void close();
 }
@@ -0,0 +1,295 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of warm database connections, so that queries do not have to pay for opening (and closing) a
+ * connection to the database file every time they are executed
+ */
+public class SQLConnectionPool {
+    /**
+     * A factory used by the pool to open new physical connections to the database
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    // Connections used more recently than this are assumed to still be valid and are not re-validated on borrow
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final long BORROW_TIMEOUT_MILLIS = 30_000;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Map<Connection, PooledConnection> connections = new ConcurrentHashMap<>();
+
+    // Statement cache counters of connections that have since been closed
+    private final AtomicLong retiredHits = new AtomicLong();
+    private final AtomicLong retiredMisses = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a connection pool
+     * @param factory the {@link ConnectionFactory factory} used to open new connections
+     * @param maxSize the maximum number of connections the pool may have open at once
+     * @param idleTimeoutMillis the time, in millis, an idle connection may stay open before being evicted
+     * @param statementCacheSize the maximum number of prepared statements to cache per connection
+     */
+    public SQLConnectionPool(@NotNull ConnectionFactory factory, int maxSize, long idleTimeoutMillis,
+                             int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Connection pool size must be at least 1");
+        }
+
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrow a connection from the pool, opening a new one if no idle connection is available and the pool is not
+     * full. Blocks until a connection is available. Every borrowed connection must be returned with
+     * {@link #release(Connection)}
+     * @return the borrowed connection
+     * @throws SQLException if the pool is closed, no connection became available in time, or a new connection could
+     * not be opened
+     */
+    @NotNull
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a pooled connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+                if (validate(pooled)) {
+                    return pooled.connection;
+                }
+                discard(pooled);
+            }
+
+            Connection connection = factory.create();
+            pooled = new PooledConnection(connection, new StatementCache(connection, statementCacheSize));
+            connections.put(pooled.connection, pooled);
+            return pooled.connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool. Any transaction left open on the connection is rolled back
+     * @param connection the connection, as returned by {@link #borrow()}
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+
+        PooledConnection pooled = connections.get(connection);
+        if (pooled == null) {
+            closeQuietly(connection);
+            return;
+        }
+
+        try {
+            if (!closed && reset(pooled)) {
+                pooled.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.push(pooled);
+                }
+                return;
+            }
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Get the statement cache of a borrowed connection
+     * @param connection the connection, as returned by {@link #borrow()}
+     * @return the connection's {@link StatementCache}, or null if the connection does not belong to this pool
+     */
+    @Nullable
+    public StatementCache getStatementCache(Connection connection) {
+        PooledConnection pooled = connections.get(connection);
+        return pooled == null ? null : pooled.statements;
+    }
+
+    /**
+     * Close connections that have been idle for longer than the idle timeout, intended to be run periodically
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        synchronized (idle) {
+            // The least recently used connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsed < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                discard(pooled);
+            }
+        }
+    }
+
+    /**
+     * Close the pool and all idle connections, connections still borrowed are closed as they are released
+     */
+    public void close() {
+        closed = true;
+
+        synchronized (idle) {
+            idle.forEach(this::discard);
+            idle.clear();
+        }
+    }
+
+    /**
+     * Check if the pool has been closed
+     * @return TRUE if the pool was closed, FALSE otherwise
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Get the maximum number of connections the pool may have open at once
+     * @return the maximum size of the pool
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the number of connections currently open, both idle and borrowed
+     * @return the number of open connections
+     */
+    public int getOpenCount() {
+        return connections.size();
+    }
+
+    /**
+     * Get the number of open connections currently waiting in the pool to be borrowed
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Get the total number of statements served from the statement caches of this pool's connections
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits() {
+        return retiredHits.get() + connections.values().stream().mapToLong(p -> p.statements.getHits()).sum();
+    }
+
+    /**
+     * Get the total number of statements that had to be prepared because they were not cached
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses() {
+        return retiredMisses.get() + connections.values().stream().mapToLong(p -> p.statements.getMisses()).sum();
+    }
+
+    private PooledConnection pollIdle() {
+        synchronized (idle) {
+            return idle.poll();
+        }
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            return System.currentTimeMillis() - pooled.lastUsed < VALIDATION_BYPASS_MILLIS
+                    || pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reset(PooledConnection pooled) {
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        if (connections.remove(pooled.connection) != null) {
+            retiredHits.addAndGet(pooled.statements.getHits());
+            retiredMisses.addAndGet(pooled.statements.getMisses());
+        }
+        pooled.statements.clear();
+        closeQuietly(pooled.connection);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing connection to SQL database!");
+        }
+    }
+
+    private static final class PooledConnection {
+        private final Connection connection;
+        private final StatementCache statements;
+        private long lastUsed;
+
+        private PooledConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+}
@@ -1,30 +1,61 @@
 package dev.extrreme.logbook.sql;
 
+import dev.extrreme.logbook.utils.executable.ExceptionExecutable;
 import dev.extrreme.logbook.utils.executable.ExceptionReturnExecutable;
+import dev.extrreme.logbook.utils.executable.Executable;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
 public interface SQLManager {
     interface SQLExecutable<T> extends ExceptionReturnExecutable<Connection, T, SQLException> {}
+    interface RowConsumer extends ExceptionExecutable<ResultSet, SQLException> {}
+
+    /**
+     * How an outermost transaction acquires its locks on the database
+     */
+    enum TransactionMode {
+        // Locks are acquired by the first read or write inside the transaction
+        DEFERRED,
+        // The write lock is acquired when the transaction begins, so it cannot fail to upgrade a read to a write
+        IMMEDIATE,
+        // As IMMEDIATE, and no other connection may read outside of WAL mode
+        EXCLUSIVE
+    }
 
     boolean createTable(String tableName, String[] columns, String[] types);
     boolean createTable(String tableName, String[] columns, String[] types, String extra);
+    boolean createIndex(String indexName, String tableName, String... columns);
     boolean dropTable(String tableName);
     boolean truncateTable(String tableName);
-    boolean setRowInTable(String tableName, String keyName, String keyValue, Map<String, Object> vals);
+    boolean setRowInTable(String tableName, String keyName, Object keyValue, Map<String, Object> vals);
+    BatchResult setRowsInTable(String tableName, String keyName, Map<String, Map<String, Object>> rows);
+    BatchResult setRowsInTable(String tableName, String keyName, Map<String, Map<String, Object>> rows, int batchSize);
     boolean setValInTable(String tableName, String keyName, String keyValue, String valueName, String value);
-    boolean deleteRowInTable(String tableName, String keyName, String keyValue);
+    boolean deleteRowInTable(String tableName, String keyName, Object keyValue);
     Object getValInTable(String tableName, String keyName, String keyValue, String valueName);
     List<Map<Object, Object>> getRowsInTable(String tableName, String keyName, String keyValue, String... columns);
     List<Map<Object, Object>> getRowsInTable(String tableName, String keyName, String keyValue, String[] columns, String extra);
     List<Map<Object, Object>> getAllRowsInTable(String tableName, String... columns);
     List<Map<Object, Object>> getAllRowsInTable(String tableName, String[] columns, String extra);
+    boolean forEachRow(String tableName, String[] columns, String extra, RowConsumer consumer);
+    boolean forEachRow(String tableName, String keyName, Object keyValue, String[] columns, String extra, RowConsumer consumer);
+    <T> boolean forEachRow(String tableName, RowMapper<T> mapper, String extra, Executable<T> consumer);
+    <T> List<T> getRowsInTable(String tableName, String keyName, Object keyValue, RowMapper<T> mapper, String extra);
+    <T> List<T> getAllRowsInTable(String tableName, RowMapper<T> mapper, String extra);
+    <T> boolean forEachResult(String statement, Map<Integer, Object> params, RowMapper<T> mapper, Executable<T> consumer);
+    <T> List<T> query(String statement, Map<Integer, Object> params, RowMapper<T> mapper);
     List<Object> getColumnInTable(String tableName, String column);
     List<Object> getColumnInTable(String tableName, String column, String extra);
     int getRowCount(String tableName);
+    boolean trackRowCount(String tableName);
     boolean execute(String statement);
     boolean execute(String statement, Map<Integer, Object> params);
+    <T> T inTransaction(SQLExecutable<T> exec);
+    <T> T inTransaction(TransactionMode mode, SQLExecutable<T> exec);
+    <T> T inSnapshot(SQLExecutable<T> exec);
+    void afterCommit(Runnable action);
 }
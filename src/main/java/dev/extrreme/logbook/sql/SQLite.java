@@ -1,18 +1,66 @@
 package dev.extrreme.logbook.sql;
 
+import dev.extrreme.logbook.config.Config;
+import dev.extrreme.logbook.config.ConfigKeys;
+import dev.extrreme.logbook.metrics.Metrics;
+import dev.extrreme.logbook.scheduling.RepeatingTask;
+import dev.extrreme.logbook.scheduling.Scheduler;
 import dev.extrreme.logbook.utils.FileUtility;
 import dev.extrreme.logbook.utils.StringUtility;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class SQLite implements SQL {
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final long DEFAULT_POOL_IDLE_TIMEOUT = 60_000;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_WRITE_QUEUE_CAPACITY = 10_000;
+    public static final long DEFAULT_GROUP_COMMIT_DELAY = 5;
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 100;
+    public static final long DEFAULT_SCAN_WARN_ROWS = 10_000;
+    public static final int DEFAULT_BACKUP_INTERVAL = 3_600_000;
+    public static final int DEFAULT_BACKUP_RETENTION = 7;
+
     private final File dbFile;
+    private final String url;
+    private final SQLiteStorage storage;
+    private final Connection keeper;
     private final SQLiteManager manager;
+    private final SQLConnectionPool pool;
+    private final SQLConnectionPool writePool;
+    private final RepeatingTask evictionTask;
+    private final SQLiteBackup backup;
+    private final RepeatingTask backupTask;
+    private final WriteBehindQueue writeQueue;
+    private final QueryLog queryLog;
+    private final int batchSize;
+    private final SQLiteProfile profile;
 
     public SQLite(String dbName, File parent) {
+        this(dbName, parent, null);
+    }
+
+    public SQLite(String dbName, File parent, @Nullable Config config) {
+        this(dbName, parent, config, selectStorage(config));
+    }
+
+    /**
+     * Creates an SQLite database
+     * @param dbName the name of the database, used for its file, or in {@link SQLiteStorage#MEMORY memory} storage to
+     * name the shared in-memory database
+     * @param parent the directory the database file and query log are kept in, in memory storage a database file in
+     * this directory is loaded into memory if it exists, may be null in memory storage
+     * @param config the config to read the pool, profile and queue settings from, or null for the defaults
+     * @param storage where the database keeps its data
+     */
+    public SQLite(String dbName, @Nullable File parent, @Nullable Config config, @NotNull SQLiteStorage storage) {
         System.out.println("Initializing SQL connection...");
 
         try {
@@ -26,23 +74,182 @@ public class SQLite implements SQL {
             dbName = StringUtility.replaceLast(dbName, ".db", "");
         }
 
-        dbFile = new File(parent, dbName + ".db");
-        FileUtility.createIfNotExists(dbFile);
+        this.storage = storage;
+        dbFile = parent == null ? null : new File(parent, dbName + ".db");
+        if (storage == SQLiteStorage.MEMORY) {
+            // Every connection opening the same named in-memory database with a shared cache sees the same data
+            url = "jdbc:sqlite:file:" + dbName + "?mode=memory&cache=shared";
+        } else {
+            if (dbFile == null) {
+                throw new IllegalArgumentException("A file database needs a parent directory");
+            }
+            FileUtility.createIfNotExists(dbFile);
+            url = "jdbc:sqlite:" + dbFile;
+        }
+
+        // A shared in-memory database is deleted as soon as its last connection closes, which the pools may do to any
+        // idle connection at any time, so one connection is held open outside of them until the database is closed
+        keeper = storage == SQLiteStorage.MEMORY ? openKeeper() : null;
+
+        int poolSize = config == null ? DEFAULT_POOL_SIZE
+                : config.getIntValue(ConfigKeys.SQL_POOL_SIZE, DEFAULT_POOL_SIZE);
+        long idleTimeout = config == null ? DEFAULT_POOL_IDLE_TIMEOUT
+                : config.getLongValue(ConfigKeys.SQL_POOL_IDLE_TIMEOUT, DEFAULT_POOL_IDLE_TIMEOUT);
+        int statementCacheSize = config == null ? DEFAULT_STATEMENT_CACHE_SIZE
+                : config.getIntValue(ConfigKeys.SQL_STATEMENT_CACHE_SIZE, DEFAULT_STATEMENT_CACHE_SIZE);
+        SQLiteProfile configuredProfile = config == null ? null
+                : SQLiteProfile.getByName(config.getValue(ConfigKeys.SQL_PROFILE));
+        profile = configuredProfile == null ? SQLiteProfile.DEFAULT : configuredProfile;
+
+        batchSize = config == null ? DEFAULT_BATCH_SIZE
+                : config.getIntValue(ConfigKeys.SQL_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+
+        // A single writer keeps writes serialized, while WAL lets any number of readers run alongside it
+        writePool = new SQLConnectionPool(this::openConnection, 1, idleTimeout, statementCacheSize);
+        pool = new SQLConnectionPool(this::openReadConnection, Math.max(1, poolSize), idleTimeout,
+                statementCacheSize);
+
+        int evictionInterval = (int) Math.max(1_000, Math.min(idleTimeout, Integer.MAX_VALUE));
+        evictionTask = Scheduler.getInstance().runRepeatingAsyncTask(new RepeatingTask(() -> {
+            writePool.evictIdle();
+            pool.evictIdle();
+        }, evictionInterval, evictionInterval));
+
+        // A negative threshold turns the query log off
+        long slowQueryThreshold = config == null ? DEFAULT_SLOW_QUERY_THRESHOLD
+                : config.getLongValue(ConfigKeys.SQL_SLOW_QUERY_THRESHOLD, DEFAULT_SLOW_QUERY_THRESHOLD);
+        long scanWarnRows = config == null ? DEFAULT_SCAN_WARN_ROWS
+                : config.getLongValue(ConfigKeys.SQL_SCAN_WARN_ROWS, DEFAULT_SCAN_WARN_ROWS);
+        queryLog = slowQueryThreshold < 0 || parent == null ? null
+                : new QueryLog(new File(parent, dbName + "-queries.log"), slowQueryThreshold, scanWarnRows);
 
         manager = new SQLiteManager(this);
 
+        if (storage == SQLiteStorage.MEMORY && dbFile != null && dbFile.isFile() && dbFile.length() > 0) {
+            System.out.println("Loading " + dbFile.getName() + " into memory, changes will not be saved to it!");
+            loadFrom(dbFile);
+        }
+
+        // Queued writes are committed in groups of up to one batch
+        int writeQueueCapacity = config == null ? DEFAULT_WRITE_QUEUE_CAPACITY
+                : config.getIntValue(ConfigKeys.SQL_WRITE_QUEUE_CAPACITY, DEFAULT_WRITE_QUEUE_CAPACITY);
+        long groupCommitDelay = config == null ? DEFAULT_GROUP_COMMIT_DELAY
+                : config.getLongValue(ConfigKeys.SQL_GROUP_COMMIT_DELAY, DEFAULT_GROUP_COMMIT_DELAY);
+        writeQueue = new WriteBehindQueue(manager, writeQueueCapacity, batchSize, groupCommitDelay);
+
+        // A non-positive interval turns the scheduled backups off
+        int backupInterval = config == null ? DEFAULT_BACKUP_INTERVAL
+                : config.getIntValue(ConfigKeys.SQL_BACKUP_INTERVAL, DEFAULT_BACKUP_INTERVAL);
+        int backupRetention = config == null ? DEFAULT_BACKUP_RETENTION
+                : config.getIntValue(ConfigKeys.SQL_BACKUP_RETENTION, DEFAULT_BACKUP_RETENTION);
+        backup = parent == null ? null : new SQLiteBackup(this, new File(parent, "backups"), dbName, backupRetention);
+        backupTask = backup == null || backupInterval <= 0 ? null : backup.schedule(backupInterval);
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("sql_reader_connections_open", pool::getOpenCount);
+        metrics.gauge("sql_reader_connections_idle", pool::getIdleCount);
+        metrics.gauge("sql_writer_connections_open", writePool::getOpenCount);
+        metrics.gauge("sql_statement_cache_hits", () -> pool.getStatementCacheHits()
+                + writePool.getStatementCacheHits());
+        metrics.gauge("sql_statement_cache_misses", () -> pool.getStatementCacheMisses()
+                + writePool.getStatementCacheMisses());
+        metrics.gauge("sql_write_queue_depth", writeQueue::getQueuedCount);
+
         System.out.println("Successfully connected!");
     }
 
+    /**
+     * Creates an SQLite database held only in memory, which is not loaded from or saved to any file and is deleted
+     * when it is closed, using the default settings
+     * @param dbName the name of the in-memory database, SQLite instances created with the same name share it
+     * @return the database
+     */
+    @NotNull
+    public static SQLite inMemory(String dbName) {
+        return new SQLite(dbName, null, null, SQLiteStorage.MEMORY);
+    }
+
     @Override
     public SQLiteManager getManager() {
         return this.manager;
     }
 
+    /**
+     * Get the pool of warm, read-only connections used by the {@link SQLiteManager} for queries
+     * @return the reader connection pool
+     */
+    public SQLConnectionPool getConnectionPool() {
+        return this.pool;
+    }
+
+    /**
+     * Get the pool holding the single connection used by the {@link SQLiteManager} for all writes
+     * @return the writer connection pool
+     */
+    public SQLConnectionPool getWriteConnectionPool() {
+        return this.writePool;
+    }
+
+    /**
+     * Get the queue through which writes are applied in the background in group commits
+     * @return the {@link WriteBehindQueue write queue}
+     */
+    public WriteBehindQueue getWriteQueue() {
+        return this.writeQueue;
+    }
+
+    /**
+     * Get the log slow statements and full scans of large tables are written to
+     * @return the {@link QueryLog query log}, or null if it is turned off
+     */
+    @Nullable
+    public QueryLog getQueryLog() {
+        return this.queryLog;
+    }
+
+    /**
+     * Get the service that takes hot backups of the database
+     * @return the {@link SQLiteBackup backup} service, or null if the database has no parent directory to keep backups
+     * in
+     */
+    @Nullable
+    public SQLiteBackup getBackup() {
+        return this.backup;
+    }
+
+    /**
+     * Get where the database keeps its data
+     * @return the {@link SQLiteStorage storage}
+     */
+    public SQLiteStorage getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Get the PRAGMA tuning profile applied to every connection
+     * @return the {@link SQLiteProfile profile}
+     */
+    public SQLiteProfile getProfile() {
+        return this.profile;
+    }
+
+    /**
+     * Get the default number of rows written per JDBC batch by batched writes
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Opens a new connection to the database, which the caller is responsible for closing. Prefer borrowing from the
+     * {@link #getConnectionPool() connection pool} for short-lived queries
+     * @return the new connection, or null if the connection could not be established
+     */
     @Override
     public Connection getConnection() {
         try {
-            return DriverManager.getConnection("jdbc:sqlite:" + this.dbFile);
+            return openConnection();
         } catch (SQLException e) {
             System.out.println("Error connecting to SQL database, please check"
                     + " your credentials and try again!");
@@ -51,19 +258,120 @@ public class SQLite implements SQL {
         return null;
     }
 
-    @Override
-    public boolean testConnection() {
-        Connection conn = getConnection();
-        if (conn == null) {
+    /**
+     * Replace the entire contents of the database with the contents of a database file, using SQLite's online backup
+     * API, which copies the file page by page rather than statement by statement. Must not be called while a
+     * transaction is open on the current thread
+     * @param source the database file to load
+     * @return TRUE if the database was loaded, FALSE otherwise
+     */
+    public boolean loadFrom(@NotNull File source) {
+        if (!source.isFile()) {
+            System.out.println("Error loading SQL database, " + source + " does not exist!");
             return false;
         }
+
+        long start = System.nanoTime();
+        Connection conn = null;
         try {
-            conn.close();
+            conn = writePool.borrow();
+            try (Statement statement = conn.createStatement()) {
+                // restore is a command of the sqlite-jdbc driver rather than SQL, it wraps sqlite3_backup
+                statement.executeUpdate("restore from \"" + source.getAbsolutePath() + "\"");
+            }
         } catch (SQLException e) {
-            System.out.println("Error closing connection to SQL database!");
+            System.out.println("Error loading SQL database from " + source + "!");
+            e.printStackTrace();
             return false;
+        } finally {
+            writePool.release(conn);
         }
 
+        Metrics.getInstance().histogram("sql_load_nanos").recordSince(start);
         return true;
     }
+
+    @Override
+    public boolean testConnection() {
+        Connection conn;
+        try {
+            conn = writePool.borrow();
+        } catch (SQLException e) {
+            System.out.println("Error connecting to SQL database, please check"
+                    + " your credentials and try again!");
+            e.printStackTrace();
+            return false;
+        }
+
+        writePool.release(conn);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        System.out.println("Flushing queued SQL writes...");
+        writeQueue.close();
+
+        System.out.println("Closing SQL connections...");
+        Scheduler.getInstance().cancelTask(evictionTask);
+        if (backupTask != null) {
+            Scheduler.getInstance().cancelTask(backupTask);
+        }
+        pool.close();
+        writePool.close();
+
+        if (keeper != null) {
+            try {
+                keeper.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static SQLiteStorage selectStorage(@Nullable Config config) {
+        // The system property overrides the config, so a session can be run in memory without editing the config
+        SQLiteStorage storage = SQLiteStorage.getByName(System.getProperty(SQLiteStorage.PROPERTY));
+        if (storage == null && config != null) {
+            storage = SQLiteStorage.getByName(config.getValue(ConfigKeys.SQL_STORAGE));
+        }
+        return storage == null ? SQLiteStorage.DEFAULT : storage;
+    }
+
+    private Connection openKeeper() {
+        try {
+            return DriverManager.getConnection(this.url);
+        } catch (SQLException e) {
+            System.out.println("Error opening in-memory SQL database!");
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(this.url);
+        try {
+            profile.apply(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private Connection openReadConnection() throws SQLException {
+        Connection connection = openConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA query_only = ON;");
+            if (storage == SQLiteStorage.MEMORY) {
+                // A shared cache locks tables rather than the database, and has no WAL, so without this a reader would
+                // fail with SQLITE_LOCKED on any table the writer is writing to instead of reading alongside it
+                statement.execute("PRAGMA read_uncommitted = ON;");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
 }
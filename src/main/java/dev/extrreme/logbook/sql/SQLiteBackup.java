@@ -0,0 +1,173 @@
+package dev.extrreme.logbook.sql;
+
+import dev.extrreme.logbook.metrics.Metrics;
+import dev.extrreme.logbook.scheduling.RepeatingTask;
+import dev.extrreme.logbook.scheduling.Scheduler;
+import dev.extrreme.logbook.utils.IgnoredResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Takes hot backups of an {@link SQLite} database while it is in use, through SQLite's online backup API, and keeps the
+ * most recent of them as gzip compressed files. The backup runs on a connection of its own, which copies the database
+ * a hundred pages at a time and backs off whenever the database is busy, so unlike copying the database file it always
+ * produces a consistent copy and never holds up the writer for longer than one step
+ */
+public class SQLiteBackup {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'");
+    private static final String EXTENSION = ".db.gz";
+
+    private final SQLite sqlite;
+    private final File directory;
+    private final String name;
+    private final int retention;
+
+    /**
+     * Creates a backup service
+     * @param sqlite the database to back up
+     * @param directory the directory backups are written to, created if it does not exist
+     * @param name the name backups are prefixed with (e.g., logbook)
+     * @param retention the number of most recent backups to keep, older backups are deleted
+     */
+    public SQLiteBackup(@NotNull SQLite sqlite, @NotNull File directory, @NotNull String name, int retention) {
+        this.sqlite = sqlite;
+        this.directory = directory;
+        this.name = name;
+        this.retention = Math.max(1, retention);
+    }
+
+    /**
+     * Start backing up the database at a fixed interval via the {@link Scheduler}
+     * @param intervalMillis the time between the end of one backup and the start of the next, in millis
+     * @return the scheduled task, which must be cancelled to stop the backups
+     */
+    @NotNull
+    public RepeatingTask schedule(int intervalMillis) {
+        return Scheduler.getInstance().runRepeatingAsyncTask(new RepeatingTask(this::backup, intervalMillis,
+                intervalMillis));
+    }
+
+    /**
+     * Back up the database to a new compressed file, then delete the oldest backups beyond the retention
+     * @return the {@link Result result} of the backup, or null if it failed
+     */
+    @Nullable
+    public synchronized Result backup() {
+        long start = System.nanoTime();
+        Metrics metrics = Metrics.getInstance();
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Error creating SQL backup directory " + directory + "!");
+            metrics.counter("sql_backup_failures").increment();
+            return null;
+        }
+
+        String stamp = ZonedDateTime.now(ZoneOffset.UTC).format(TIMESTAMP);
+        File copy = new File(directory, name + "-" + stamp + ".db.tmp");
+        File compressed = new File(directory, name + "-" + stamp + EXTENSION);
+
+        Result result = null;
+        try {
+            long pages = copyTo(copy);
+            long bytes = copy.length();
+            compress(copy, compressed);
+            result = new Result(compressed, pages, bytes, compressed.length(), System.nanoTime() - start);
+        } catch (SQLException | IOException e) {
+            System.out.println("Error backing up SQL database!");
+            e.printStackTrace();
+            IgnoredResult.ignore(compressed.delete());
+        } finally {
+            IgnoredResult.ignore(copy.delete());
+        }
+
+        if (result == null) {
+            metrics.counter("sql_backup_failures").increment();
+            return null;
+        }
+
+        metrics.histogram("sql_backup_nanos").record(result.elapsedNanos());
+        metrics.counter("sql_backup_pages").add(result.pages());
+        metrics.counter("sql_backup_bytes").add(result.bytes());
+        System.out.println("Backed up " + result);
+
+        rotate();
+        return result;
+    }
+
+    /**
+     * Get the backups currently kept
+     * @return the backup files, oldest first
+     */
+    @NotNull
+    public File[] getBackups() {
+        File[] backups = directory.listFiles((dir, file) -> file.startsWith(name + "-") && file.endsWith(EXTENSION));
+        if (backups == null) {
+            return new File[0];
+        }
+        // The timestamps are fixed width, so name order is age order
+        Arrays.sort(backups);
+        return backups;
+    }
+
+    private long copyTo(File destination) throws SQLException {
+        Connection conn = sqlite.getConnection();
+        if (conn == null) {
+            throw new SQLException("Could not open a connection to back up from");
+        }
+
+        try (conn; Statement statement = conn.createStatement()) {
+            long pages;
+            try (ResultSet res = statement.executeQuery("PRAGMA page_count;")) {
+                pages = res.next() ? res.getLong(1) : 0;
+            }
+            // backup is a command of the sqlite-jdbc driver rather than SQL, it steps sqlite3_backup through the
+            // database and retries a step whenever the database is busy or locked
+            statement.executeUpdate("backup to \"" + destination.getAbsolutePath() + "\"");
+            return pages;
+        }
+    }
+
+    private static void compress(File source, File destination) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(destination)))) {
+            Files.copy(source.toPath(), out);
+        }
+    }
+
+    private void rotate() {
+        File[] backups = getBackups();
+        for (int i = 0; i < backups.length - retention; i++) {
+            if (!backups[i].delete()) {
+                System.out.println("Error deleting old SQL backup " + backups[i].getName() + "!");
+            }
+        }
+    }
+
+    /**
+     * The outcome of a backup
+     * @param file the compressed backup file
+     * @param pages the number of database pages copied
+     * @param bytes the size of the copy before compression, in bytes
+     * @param compressedBytes the size of the compressed backup file, in bytes
+     * @param elapsedNanos how long the backup took, including compression, in nanos
+     */
+    public record Result(File file, long pages, long bytes, long compressedBytes, long elapsedNanos) {
+        @Override
+        public String toString() {
+            return pages + " pages (" + bytes + " bytes, " + compressedBytes + " compressed) to " + file.getName()
+                    + " in " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms";
+        }
+    }
+}
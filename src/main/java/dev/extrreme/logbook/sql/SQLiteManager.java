@@ -1,5 +1,9 @@
 package dev.extrreme.logbook.sql;
 
+import dev.extrreme.logbook.metrics.Histogram;
+import dev.extrreme.logbook.metrics.Metrics;
+import dev.extrreme.logbook.utils.SQLUtility;
+import dev.extrreme.logbook.utils.executable.Executable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -9,56 +13,142 @@ import java.util.*;
 /**
  * 
  * Amazing class for dealing with SQL tasks programmatically
+ * <p>
+ * Reads are executed concurrently on a pool of reader connections, each seeing a consistent WAL snapshot, while all
+ * writes go through a single writer connection and are therefore serialized
  *
  */
 @SuppressWarnings("unused")
 public class SQLiteManager implements SQLManager {
+	// The statements run by the task currently executing on this thread, recorded for the query log
+	private static final ThreadLocal<QueryLog.Trace> TRACE = new ThreadLocal<>();
 
 	private final SQLite sql;
+	// The transaction opened by inTransaction on the current thread, whose connection every other call on that thread
+	// reuses until the transaction ends
+	private final ThreadLocal<Transaction> transaction = new ThreadLocal<>();
 
 	public SQLiteManager(SQLite sql){
 		this.sql = sql;
 	}
 
 	@Nullable
-	private synchronized Connection getConnection() {
-		Connection c = sql.getConnection();
+	private static Connection getConnection(SQLConnectionPool pool) {
+		long start = System.nanoTime();
 		try {
-			c.setAutoCommit(true);
+			Connection conn = pool.borrow();
+			Metrics.getInstance().histogram("sql_connection_wait_nanos").recordSince(start);
+			return conn;
 		} catch (SQLException e) {
+			Metrics.getInstance().counter("sql_connection_failures").increment();
 			System.out.println("Error connecting to SQL database!");
 			e.printStackTrace();
+			return null;
 		}
-		try {
-			if (c.isClosed()){
-				return getConnection();
-			}
-		} catch (SQLException e) {
-			e.printStackTrace();
-			return c;
-		}
-		return c;
 	}
 
+	/**
+	 * Execute a read-only task on one of the pooled reader connections, reads run concurrently with each other and with
+	 * the writer
+	 */
 	@Nullable
 	private <T> T doWhileConnected(SQLExecutable<T> exec) {
-		Connection c = getConnection();
+		return doWhileConnected(sql.getConnectionPool(), exec);
+	}
+
+	/**
+	 * Execute a task on the single writer connection, writes are serialized by waiting for the writer to be released
+	 */
+	@Nullable
+	private <T> T doWhileWriting(SQLExecutable<T> exec) {
+		return doWhileConnected(sql.getWriteConnectionPool(), exec);
+	}
+
+	@Nullable
+	private <T> T doWhileConnected(SQLConnectionPool pool, SQLExecutable<T> exec) {
+		Histogram latency = Metrics.getInstance().histogram(pool == sql.getWriteConnectionPool()
+				? "sql_write_nanos" : "sql_read_nanos");
+
+		// Inside a transaction, reads must see its uncommitted writes and writes must not wait for the writer it holds
+		Transaction current = transaction.get();
+		if (current != null) {
+			return executeTraced(current.connection, latency, exec);
+		}
+
+		Connection c = getConnection(pool);
 		if (c == null) {
 			return null;
 		}
 		try {
-			return exec.execute(c);
+			return executeTraced(c, latency, exec);
+		} finally {
+			pool.release(c);
+		}
+	}
+
+	/**
+	 * Execute a task, timing it into the latency histogram and recording the statements it prepares so that they can
+	 * be written to the {@link QueryLog query log} if they are slow. Tasks run from within another traced task are part
+	 * of its trace
+	 */
+	@Nullable
+	private <T> T executeTraced(Connection conn, Histogram latency, SQLExecutable<T> exec) {
+		QueryLog log = TRACE.get() == null ? sql.getQueryLog() : null;
+		QueryLog.Trace current = null;
+		if (log != null) {
+			current = new QueryLog.Trace();
+			TRACE.set(current);
+		}
+
+		long start = System.nanoTime();
+		try {
+			return exec.execute(conn);
 		} catch (SQLException e) {
+			Metrics.getInstance().counter("sql_errors").increment();
 			return null;
 		} finally {
-			try {
-				c.close();
-			} catch (SQLException e) {
-				System.out.println("Error closing connection to SQL database!");
+			long elapsed = System.nanoTime() - start;
+			latency.record(elapsed);
+			if (log != null) {
+				TRACE.remove();
+				log.record(conn, current, elapsed);
 			}
 		}
 	}
 
+	private static void traceParameter(int index, Object value) {
+		QueryLog.Trace current = TRACE.get();
+		if (current != null) {
+			current.parameter(index, value);
+		}
+	}
+
+	private static void bindString(PreparedStatement statement, int index, String value) throws SQLException {
+		statement.setString(index, value);
+		traceParameter(index, value);
+	}
+
+	/**
+	 * Get a prepared statement for the given SQL text from the connection's statement cache, the returned statement is
+	 * owned by the cache and must not be closed
+	 */
+	@NotNull
+	private PreparedStatement prepare(Connection conn, String query) throws SQLException {
+		StatementCache cache = sql.getConnectionPool().getStatementCache(conn);
+		if (cache == null) {
+			cache = sql.getWriteConnectionPool().getStatementCache(conn);
+		}
+		if (cache == null) {
+			throw new SQLException("Connection does not belong to the connection pool");
+		}
+
+		QueryLog.Trace current = TRACE.get();
+		if (current != null) {
+			current.statement(query);
+		}
+		return cache.prepare(query);
+	}
+
 	/**
 	 * Creates a table, if it does not already exist, with the specified columns
 	 *
@@ -67,7 +157,7 @@ public class SQLiteManager implements SQLManager {
 	 * @param columnTypes The SQL types of the columns
 	 */
 	@Override
-	public synchronized boolean createTable(String tableName, String[] columns, String[] columnTypes) {
+	public boolean createTable(String tableName, String[] columns, String[] columnTypes) {
 		return createTable(tableName, columns, columnTypes, null);
 	}
 
@@ -80,8 +170,8 @@ public class SQLiteManager implements SQLManager {
 	 * @param extra The extra SQL syntax (e.g., "PRIMARY KEY (`column_name`)")
 	 */
 	@Override
-	public synchronized boolean createTable(String tableName, String[] columns, String[] columnTypes, String extra) {
-		Boolean res = doWhileConnected(conn -> {
+	public boolean createTable(String tableName, String[] columns, String[] columnTypes, String extra) {
+		Boolean res = doWhileWriting(conn -> {
 			if (columns.length != columnTypes.length) {
 				throw new IllegalArgumentException("Length of columns does not match the length of columnTypes");
 			}
@@ -115,6 +205,45 @@ public class SQLiteManager implements SQLManager {
 		return res != null && res;
 	}
 
+	/**
+	 * Creates an index on a table, if it does not already exist
+	 *
+	 * @param indexName The index's name
+	 * @param tableName The table to index
+	 * @param columns The columns of the index, in order, each optionally followed by a sort order (e.g., "departuretime
+	 *                DESC")
+	 * @return TRUE if the index was successfully created or already exists, FALSE otherwise
+	 */
+	@Override
+	public boolean createIndex(String indexName, String tableName, String... columns) {
+		Boolean res = doWhileWriting(conn -> {
+			StringBuilder query = new StringBuilder("CREATE INDEX IF NOT EXISTS "+SQLUtility.quoteIdentifier(indexName)
+					+" ON "+SQLUtility.quoteIdentifier(tableName)+" (");
+			for (int i = 0; i < columns.length; i++) {
+				if (i != 0) {
+					query.append(", ");
+				}
+				String[] parts = columns[i].trim().split("\\s+", 2);
+				query.append(SQLUtility.quoteIdentifier(parts[0]));
+				if (parts.length > 1) {
+					if (!parts[1].equalsIgnoreCase("ASC") && !parts[1].equalsIgnoreCase("DESC")) {
+						throw new IllegalArgumentException("Invalid index column sort order: " + parts[1]);
+					}
+					query.append(" ").append(parts[1].toUpperCase());
+				}
+			}
+			query.append(");");
+
+			Statement statement = conn.createStatement();
+			statement.executeUpdate(query.toString());
+			statement.close();
+
+			return true;
+		});
+
+		return res != null && res;
+	}
+
 	/**
 	 * Deletes a table, if it exists already
 	 * @param tableName the table's name
@@ -122,13 +251,15 @@ public class SQLiteManager implements SQLManager {
 	 */
 	@Override
 	public boolean dropTable(String tableName) {
-		Boolean res = doWhileConnected(conn -> {
+		Boolean res = doWhileWriting(conn -> {
 			String query = "DROP TABLE IF EXISTS " + tableName + ";";
 
 			Statement statement = conn.createStatement();
 			statement.executeUpdate(query);
 			statement.close();
 
+			RowCounts.forget(conn, tableName);
+
 			return true;
 		});
 
@@ -143,7 +274,7 @@ public class SQLiteManager implements SQLManager {
 	 */
 	@Override
 	public boolean truncateTable(String tableName) {
-		Boolean res = doWhileConnected(conn -> {
+		Boolean res = doWhileWriting(conn -> {
 			String query = "DELETE FROM " + tableName + ";";
 
 			Statement statement = conn.createStatement();
@@ -161,95 +292,190 @@ public class SQLiteManager implements SQLManager {
 	 *
 	 * @param tableName The table to set the values in
 	 * @param keyColumn The table's PRIMARY KEY
-	 * @param keyValue The table's PRIMARY KEY's value to modify the row of
+	 * @param keyValue The table's PRIMARY KEY's value to modify the row of, a String, number or byte[]
 	 * @param vals all columns and associated values to set in the row
 	 * @return TRUE if all desired cells were successfully edited, FALSE otherwise
 	 */
 	@Override
-	public synchronized boolean setRowInTable(String tableName, String keyColumn, String keyValue, Map<String, Object> vals) {
-		Boolean res = doWhileConnected(conn -> {
-			List<String> columns = new ArrayList<>();
-			columns.add(keyColumn);
-			columns.addAll(vals.keySet());
+	public boolean setRowInTable(String tableName, String keyColumn, Object keyValue, Map<String, Object> vals) {
+		Boolean res = doWhileWriting(conn -> {
+			PreparedStatement placeStatement = prepare(conn, buildUpsertQuery(tableName, keyColumn, vals.keySet()));
+			bindUpsertParameters(placeStatement, keyColumn, keyValue, vals);
+			placeStatement.executeUpdate();
 
-			List<Object> values = new ArrayList<>();
-			values.add(keyValue);
+			return true;
+		});
 
-			for (String key : columns){
-				if (key.equals(keyColumn)) {
-					continue;
-				}
-				values.add(vals.get(key));
+		return res != null && res;
+	}
+
+	/**
+	 * Set multiple rows in an SQL table in a single transaction, using JDBC batches of the configured batch size
+	 *
+	 * @param tableName The table to set the rows in
+	 * @param keyColumn The table's PRIMARY KEY
+	 * @param rows The table's PRIMARY KEY values of the rows to modify, mapped to all columns and associated values to
+	 *             set in each row
+	 * @return A {@link BatchResult} recording any rows that could not be set
+	 */
+	@Override @NotNull
+	public BatchResult setRowsInTable(String tableName, String keyColumn, Map<String, Map<String, Object>> rows) {
+		return setRowsInTable(tableName, keyColumn, rows, sql.getBatchSize());
+	}
+
+	/**
+	 * Set multiple rows in an SQL table in a single transaction, using JDBC batches of the specified size. If a batch
+	 * fails, its rows are retried individually so that only the offending rows are reported as failed
+	 *
+	 * @param tableName The table to set the rows in
+	 * @param keyColumn The table's PRIMARY KEY
+	 * @param rows The table's PRIMARY KEY values of the rows to modify, mapped to all columns and associated values to
+	 *             set in each row
+	 * @param batchSize The maximum number of rows sent to the database in each batch
+	 * @return A {@link BatchResult} recording any rows that could not be set
+	 */
+	@Override @NotNull
+	public BatchResult setRowsInTable(String tableName, String keyColumn,
+												   Map<String, Map<String, Object>> rows, int batchSize) {
+		BatchResult result = new BatchResult(rows.size());
+		if (rows.isEmpty()) {
+			return result;
+		}
+
+		List<Map.Entry<String, Map<String, Object>>> entries = new ArrayList<>(rows.entrySet());
+		int chunkSize = Math.max(1, batchSize);
+
+		Boolean res = inTransaction(conn -> {
+			for (int start = 0; start < entries.size(); start += chunkSize) {
+				setRowsChunk(conn, tableName, keyColumn,
+						entries.subList(start, Math.min(entries.size(), start + chunkSize)), result);
 			}
+			return true;
+		});
 
-			StringBuilder columnBuilder = new StringBuilder("(");
-			boolean first = true;
-			for (String key : columns){
-				if (!first) {
-					columnBuilder.append(", ");
-				}
-				else {
-					first = false;
+		if (res == null) {
+			result.failAll(rows.keySet(), "The transaction was rolled back");
+		}
+		return result;
+	}
+
+	private void setRowsChunk(Connection conn, String tableName, String keyColumn,
+							  List<Map.Entry<String, Map<String, Object>>> chunk, BatchResult result) throws SQLException {
+		// Rows setting different columns need different statements, so group them by their query
+		Map<String, List<Map.Entry<String, Map<String, Object>>>> byQuery = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, Object>> row : chunk) {
+			byQuery.computeIfAbsent(buildUpsertQuery(tableName, keyColumn, row.getValue().keySet()),
+					k -> new ArrayList<>()).add(row);
+		}
+
+		// Each chunk runs in its own savepoint, so a failed batch is undone without losing the chunks before it
+		Boolean batched = inTransaction(c -> {
+			for (Map.Entry<String, List<Map.Entry<String, Map<String, Object>>>> group : byQuery.entrySet()) {
+				PreparedStatement placeStatement = prepare(c, group.getKey());
+				for (Map.Entry<String, Map<String, Object>> row : group.getValue()) {
+					bindUpsertParameters(placeStatement, keyColumn, row.getKey(), row.getValue());
+					placeStatement.addBatch();
 				}
-				columnBuilder.append("`").append(key).append("`");
+				placeStatement.executeBatch();
 			}
-			columnBuilder.append(")");
+			return true;
+		});
+		if (batched != null) {
+			return;
+		}
 
-			StringBuilder valsBuilder = new StringBuilder("(");
-			first = true;
-			for (String ignored : columns){
-				if (!first) {
-					valsBuilder.append(", ");
-				}
-				else {
-					first = false;
+		// Retry the rows of the failed batch one by one, to find out which of them are at fault
+		for (Map.Entry<String, List<Map.Entry<String, Map<String, Object>>>> group : byQuery.entrySet()) {
+			PreparedStatement placeStatement = prepare(conn, group.getKey());
+			placeStatement.clearBatch();
+			for (Map.Entry<String, Map<String, Object>> row : group.getValue()) {
+				try {
+					bindUpsertParameters(placeStatement, keyColumn, row.getKey(), row.getValue());
+					placeStatement.executeUpdate();
+				} catch (SQLException e) {
+					result.addFailure(row.getKey(), e.getMessage());
 				}
-				valsBuilder.append("?");
 			}
-			valsBuilder.append(")");
+		}
+	}
 
-			StringBuilder updateBuilder = new StringBuilder();
-			first = true;
-			for (String valName : vals.keySet()){
-				if (!first) {
-					updateBuilder.append(", ");
-				}
-				else {
-					first = false;
-				}
-				updateBuilder.append("`").append(valName).append("`=?");
+	private static String buildUpsertQuery(String tableName, String keyColumn, Collection<String> valueColumns) {
+		// The key column is always set first, so it is skipped if also present in the value columns
+		List<String> updateColumns = new ArrayList<>(valueColumns);
+		updateColumns.remove(keyColumn);
+
+		List<String> columns = new ArrayList<>();
+		columns.add(keyColumn);
+		columns.addAll(updateColumns);
+
+		StringBuilder columnBuilder = new StringBuilder("(");
+		boolean first = true;
+		for (String key : columns){
+			if (!first) {
+				columnBuilder.append(", ");
 			}
+			else {
+				first = false;
+			}
+			columnBuilder.append("`").append(key).append("`");
+		}
+		columnBuilder.append(")");
 
-			String replace = "INSERT INTO "+tableName+" "+ columnBuilder +" VALUES "+ valsBuilder
-					+ " ON CONFLICT(`"+keyColumn+"`) DO UPDATE SET "+ updateBuilder +";";
-			PreparedStatement placeStatement = conn.prepareStatement(replace);
-			int n = 1;
-			for (Object val : values) {
-				placeStatement.setObject(n, val);
-				n++;
+		StringBuilder valsBuilder = new StringBuilder("(");
+		first = true;
+		for (String ignored : columns){
+			if (!first) {
+				valsBuilder.append(", ");
 			}
-			//Now to prepare the 'UPDATE' statement
-			for (String valName : vals.keySet()){
-				Object o = vals.get(valName);
-				if (o instanceof Blob) {
-					placeStatement.setBlob(n, (Blob) o);
-				} else if (o instanceof byte[]) {
-					placeStatement.setBytes(n, (byte[]) o);
-				} else if (o instanceof String) {
-					placeStatement.setString(n, (String) o);
-				} else {
-					placeStatement.setObject(n, o);
-				}
+			else {
+				first = false;
+			}
+			valsBuilder.append("?");
+		}
+		valsBuilder.append(")");
 
-				n++;
+		StringBuilder updateBuilder = new StringBuilder();
+		first = true;
+		for (String valName : updateColumns){
+			if (!first) {
+				updateBuilder.append(", ");
 			}
-			placeStatement.executeUpdate();
-			placeStatement.close();
+			else {
+				first = false;
+			}
+			updateBuilder.append("`").append(valName).append("`=?");
+		}
 
-			return true;
-		});
+		String onConflict = updateColumns.isEmpty() ? "DO NOTHING" : "DO UPDATE SET "+ updateBuilder;
+		return "INSERT INTO "+tableName+" "+ columnBuilder +" VALUES "+ valsBuilder
+				+ " ON CONFLICT(`"+keyColumn+"`) "+ onConflict +";";
+	}
 
-		return res != null && res;
+	private static void bindUpsertParameters(PreparedStatement placeStatement, String keyColumn, Object keyValue,
+											 Map<String, Object> vals) throws SQLException {
+		List<Object> values = new ArrayList<>();
+		values.add(keyValue);
+
+		for (String key : vals.keySet()){
+			if (key.equals(keyColumn)) {
+				continue;
+			}
+			values.add(vals.get(key));
+		}
+
+		int n = 1;
+		for (Object val : values) {
+			bindValue(placeStatement, n, val);
+			n++;
+		}
+		//Now to prepare the 'UPDATE' statement
+		for (String valName : vals.keySet()){
+			if (valName.equals(keyColumn)) {
+				continue;
+			}
+			bindValue(placeStatement, n, vals.get(valName));
+			n++;
+		}
 	}
 
 	/**
@@ -263,16 +489,16 @@ public class SQLiteManager implements SQLManager {
 	 * @return TRUE if the cell's value was successfully edited, FALSE otherwise
 	 */
 	@Override
-	public synchronized boolean setValInTable(String tableName, String keyColumn, String keyValue, String valueColumn, String value) {
-		Boolean res = doWhileConnected(conn -> {
-			String replace = "INSERT INTO "+tableName+" (`"+keyColumn+"`, `"+valueColumn+"`) VALUES (?, ?)"
-					+ " ON DUPLICATE KEY UPDATE "+valueColumn+" = ?;";
-			PreparedStatement placeStatement = conn.prepareStatement(replace);
-			placeStatement.setString(1, keyValue);
-			placeStatement.setString(2, value+"");
-			placeStatement.setString(3, value+"");
+	public boolean setValInTable(String tableName, String keyColumn, String keyValue, String valueColumn, String value) {
+		Boolean res = doWhileWriting(conn -> {
+			String replace = "INSERT INTO "+SQLUtility.quoteIdentifier(tableName)+" ("
+					+SQLUtility.selectList(keyColumn, valueColumn)+") VALUES (?, ?)"
+					+" ON CONFLICT("+SQLUtility.quoteIdentifier(keyColumn)+") DO UPDATE SET "
+					+SQLUtility.quoteIdentifier(valueColumn)+" = excluded."+SQLUtility.quoteIdentifier(valueColumn)+";";
+			PreparedStatement placeStatement = prepare(conn, replace);
+			bindString(placeStatement, 1, keyValue);
+			bindString(placeStatement, 2, value+"");
 			placeStatement.executeUpdate();
-			placeStatement.close();
 			return true;
 		});
 
@@ -287,14 +513,13 @@ public class SQLiteManager implements SQLManager {
 	 * @param keyValue The value of the table's PRIMARY KEY at desired row
 	 */
 	@Override
-	public synchronized boolean deleteRowInTable(String tableName, String keyColumn, String keyValue) {
-		Boolean res = doWhileConnected(conn -> {
+	public boolean deleteRowInTable(String tableName, String keyColumn, Object keyValue) {
+		Boolean res = doWhileWriting(conn -> {
 			String query = "DELETE FROM "+tableName+" WHERE "+tableName+"."+keyColumn+"=?;";
-			PreparedStatement placeStatement = conn.prepareStatement(query);
+			PreparedStatement placeStatement = prepare(conn, query);
 
-			placeStatement.setString(1, keyValue);
+			bindValue(placeStatement, 1, keyValue);
 			placeStatement.executeUpdate();
-			placeStatement.close();
 
 			return true;
 		});
@@ -312,10 +537,12 @@ public class SQLiteManager implements SQLManager {
 	 * @return The value of the found cell, or null if not found
 	 */
 	@Override @Nullable
-	public synchronized Object getValInTable(String tableName, String keyColumn, String keyValue, String valueColumn) {
+	public Object getValInTable(String tableName, String keyColumn, String keyValue, String valueColumn) {
 		return doWhileConnected(conn -> {
-			PreparedStatement statement = conn.prepareStatement("SELECT * FROM "+tableName+" WHERE "+keyColumn+" = ?;");
-			statement.setString(1, keyValue);
+			PreparedStatement statement = prepare(conn, "SELECT "+SQLUtility.selectList(keyColumn, valueColumn)
+					+" FROM "+SQLUtility.quoteIdentifier(tableName)
+					+" WHERE "+SQLUtility.quoteIdentifier(keyColumn)+" = ?;");
+			bindString(statement, 1, keyValue);
 			ResultSet res = statement.executeQuery();
 			res.next();
 			Object found;
@@ -330,7 +557,6 @@ public class SQLiteManager implements SQLManager {
 			}
 
 			res.close();
-			statement.close();
 
 			return found;
 		});
@@ -346,7 +572,7 @@ public class SQLiteManager implements SQLManager {
 	 * @return A map containing the column names and their values
 	 */
 	@Override @NotNull
-	public synchronized List<Map<Object, Object>> getRowsInTable(String tableName, String keyColumn, String keyValue, String... columns) {
+	public List<Map<Object, Object>> getRowsInTable(String tableName, String keyColumn, String keyValue, String... columns) {
 		return getRowsInTable(tableName, keyColumn, keyValue, columns, null);
 	}
 
@@ -360,91 +586,267 @@ public class SQLiteManager implements SQLManager {
 	 * @return A map containing the column names and their values
 	 */
 	@Override @NotNull
-	public synchronized List<Map<Object, Object>> getRowsInTable(String tableName, String keyColumn, String keyValue, String[] columns, String extra) {
-		List<Map<Object, Object>> rows = doWhileConnected(conn -> {
-			StringBuilder query = new StringBuilder("SELECT * FROM "+tableName+" WHERE "+keyColumn+"=?");
+	public List<Map<Object, Object>> getRowsInTable(String tableName, String keyColumn, String keyValue, String[] columns, String extra) {
+		List<Map<Object, Object>> rows = new ArrayList<>();
+		boolean res = forEachRow(tableName, keyColumn, keyValue, columns, extra, row -> rows.add(readRow(row, columns)));
+
+		return res ? rows : new ArrayList<>();
+	}
+
+	/**
+	 * Gets all rows from the table
+	 *
+	 * @param tableName The table to get the rows from
+	 * @param columns The columns you want to return the values for at each row
+	 * @return A map containing the column names and their values
+	 */
+	@Override @NotNull
+	public List<Map<Object, Object>> getAllRowsInTable(String tableName, String... columns) {
+		return getAllRowsInTable(tableName, columns, null);
+	}
+
+	/**
+	 * Gets all rows from the table, executed with the additional SQL syntax
+	 *
+	 * @param tableName The table to get the rows from
+	 * @param columns The columns you want to return the values for at each row
+	 * @return A map containing the column names and their values
+	 */
+	@Override @NotNull
+	public List<Map<Object, Object>> getAllRowsInTable(String tableName, String[] columns, String extra) {
+		List<Map<Object, Object>> rows = new ArrayList<>();
+		boolean res = forEachRow(tableName, columns, extra, row -> rows.add(readRow(row, columns)));
+
+		return res ? rows : new ArrayList<>();
+	}
+
+	/**
+	 * Stream every row of the table to a consumer, one row at a time, without holding the whole result in memory
+	 *
+	 * @param tableName The table to get the rows from
+	 * @param columns The columns the consumer will read at each row
+	 * @param extra The additional SQL syntax (e.g., "WHERE `dep` = 'CYYZ' ORDER BY `departuretime`"), may be null
+	 * @param consumer The consumer to be executed with the result set positioned at each row in turn, it must not move
+	 *                 the cursor, close the result set, or query the database itself
+	 * @return TRUE if every row was consumed, FALSE if the query or the consumer failed
+	 */
+	@Override
+	public boolean forEachRow(String tableName, String[] columns, String extra, RowConsumer consumer) {
+		Boolean res = doWhileConnected(conn -> {
+			StringBuilder query = new StringBuilder("SELECT "+SQLUtility.selectList(columns)
+					+" FROM "+SQLUtility.quoteIdentifier(tableName));
 
 			if (extra != null && !extra.trim().equals("")) {
 				query.append(" ").append(extra);
 			}
 			query.append(";");
 
-			PreparedStatement placeStatement = conn.prepareStatement(query.toString());
-			placeStatement.setString(1, keyValue);
-			ResultSet res = placeStatement.executeQuery();
-			List<Map<Object, Object>> list = new ArrayList<>();
+			PreparedStatement placeStatement = prepare(conn, query.toString());
+			consumeRows(placeStatement, consumer);
 
-			while (res.next()) {
-				Map<Object, Object> obs = new HashMap<>();
-				for (String col : columns) {
-					try {
-						Object o = res.getObject(col);
-						obs.put(col, o);
-					} catch (SQLException ignored) {}
-				}
-				list.add(obs);
+			return true;
+		});
+
+		return res != null && res;
+	}
 
+	/**
+	 * Stream every row of the table with the specified key value to a consumer, one row at a time, without holding the
+	 * whole result in memory
+	 *
+	 * @param tableName The table to get the rows from
+	 * @param keyColumn The column to match rows on
+	 * @param keyValue The value of the key column at the desired rows
+	 * @param columns The columns the consumer will read at each row
+	 * @param extra The additional SQL syntax (e.g., "ORDER BY `departuretime`"), may be null
+	 * @param consumer The consumer to be executed with the result set positioned at each row in turn, it must not move
+	 *                 the cursor, close the result set, or query the database itself
+	 * @return TRUE if every row was consumed, FALSE if the query or the consumer failed
+	 */
+	@Override
+	public boolean forEachRow(String tableName, String keyColumn, Object keyValue, String[] columns, String extra,
+							  RowConsumer consumer) {
+		Boolean res = doWhileConnected(conn -> {
+			StringBuilder query = new StringBuilder("SELECT "+SQLUtility.selectList(columns)
+					+" FROM "+SQLUtility.quoteIdentifier(tableName)+" WHERE "+SQLUtility.quoteIdentifier(keyColumn)+"=?");
+
+			if (extra != null && !extra.trim().equals("")) {
+				query.append(" ").append(extra);
 			}
+			query.append(";");
 
-			res.close();
-			placeStatement.close();
+			PreparedStatement placeStatement = prepare(conn, query.toString());
+			bindValue(placeStatement, 1, keyValue);
+			consumeRows(placeStatement, consumer);
 
-			return list;
+			return true;
 		});
 
-		return rows == null ? new ArrayList<>() : rows;
+		return res != null && res;
 	}
 
 	/**
-	 * Gets all rows from the table
+	 * Stream every row of the table to a consumer, decoded by a {@link RowMapper}, one row at a time
 	 *
 	 * @param tableName The table to get the rows from
-	 * @param columns The columns you want to return the values for at each row
-	 * @return A map containing the column names and their values
+	 * @param mapper The mapper decoding each row
+	 * @param extra The additional SQL syntax (e.g., "ORDER BY `departuretime`"), may be null
+	 * @param consumer The consumer to be executed with each decoded row, rows the mapper skips are not passed on, it
+	 *                 must not query the database itself
+	 * @return TRUE if every row was consumed, FALSE if the query failed
+	 */
+	@Override
+	public <T> boolean forEachRow(String tableName, RowMapper<T> mapper, String extra, Executable<T> consumer) {
+		return forEachRow(tableName, mapper.getColumns(), extra, new MappingConsumer<>(mapper, consumer));
+	}
+
+	/**
+	 * Gets the rows from the table with the specified key value, decoded by a {@link RowMapper}
+	 *
+	 * @param tableName The table to get the rows from
+	 * @param keyColumn The column to match rows on
+	 * @param keyValue The value of the key column at the desired rows
+	 * @param mapper The mapper decoding each row
+	 * @param extra The additional SQL syntax (e.g., "ORDER BY `departuretime`"), may be null
+	 * @return A list of the decoded rows, rows the mapper skips are left out
 	 */
 	@Override @NotNull
-	public synchronized List<Map<Object, Object>> getAllRowsInTable(String tableName, String... columns) {
-		return getAllRowsInTable(tableName, columns, null);
+	public <T> List<T> getRowsInTable(String tableName, String keyColumn, Object keyValue, RowMapper<T> mapper,
+									  String extra) {
+		List<T> rows = new ArrayList<>();
+		boolean res = forEachRow(tableName, keyColumn, keyValue, mapper.getColumns(), extra,
+				new MappingConsumer<>(mapper, rows::add));
+
+		return res ? rows : new ArrayList<>();
 	}
 
 	/**
-	 * Gets all rows from the table, executed with the additional SQL syntax
+	 * Gets all rows from the table, decoded by a {@link RowMapper}
 	 *
 	 * @param tableName The table to get the rows from
-	 * @param columns The columns you want to return the values for at each row
-	 * @return A map containing the column names and their values
+	 * @param mapper The mapper decoding each row
+	 * @param extra The additional SQL syntax (e.g., "ORDER BY `departuretime`"), may be null
+	 * @return A list of the decoded rows, rows the mapper skips are left out
 	 */
 	@Override @NotNull
-	public synchronized List<Map<Object, Object>> getAllRowsInTable(String tableName, String[] columns, String extra) {
-		List<Map<Object, Object>> rows = doWhileConnected(conn -> {
-			StringBuilder query = new StringBuilder("SELECT * FROM "+tableName);
+	public <T> List<T> getAllRowsInTable(String tableName, RowMapper<T> mapper, String extra) {
+		List<T> rows = new ArrayList<>();
+		boolean res = forEachRow(tableName, mapper, extra, rows::add);
 
-			if (extra != null && !extra.trim().equals("")) {
-				query.append(" ").append(extra);
-			}
-			PreparedStatement placeStatement = conn.prepareStatement(query.toString());
-			ResultSet res = placeStatement.executeQuery();
-			List<Map<Object, Object>> list = new ArrayList<>();
+		return res ? rows : new ArrayList<>();
+	}
 
-			while (res.next()) {
-				Map<Object, Object> obs = new HashMap<>();
-				for (String col : columns) {
-					try {
-						Object o = res.getObject(col);
-						obs.put(col, o);
-					} catch (SQLException ignored) {}
-				}
-				list.add(obs);
+	/**
+	 * Run a read-only query, streaming each resulting row, decoded by a {@link RowMapper}, to a consumer
+	 *
+	 * @param statement The SQL query to run
+	 * @param params The query's parameters, keyed by their index, may be null
+	 * @param mapper The mapper decoding each row
+	 * @param consumer The consumer to be executed with each decoded row, rows the mapper skips are not passed on, it
+	 *                 must not query the database itself
+	 * @return TRUE if every row was consumed, FALSE if the query failed
+	 */
+	@Override
+	public <T> boolean forEachResult(String statement, Map<Integer, Object> params, RowMapper<T> mapper,
+									 Executable<T> consumer) {
+		Boolean res = doWhileConnected(conn -> {
+			PreparedStatement placeStatement = prepare(conn, statement);
+			bindParameters(placeStatement, params);
+			consumeRows(placeStatement, new MappingConsumer<>(mapper, consumer));
+
+			return true;
+		});
+
+		return res != null && res;
+	}
+
+	/**
+	 * Run a read-only query, decoding each resulting row with a {@link RowMapper}
+	 *
+	 * @param statement The SQL query to run
+	 * @param params The query's parameters, keyed by their index, may be null
+	 * @param mapper The mapper decoding each row
+	 * @return A list of the decoded rows, rows the mapper skips are left out
+	 */
+	@Override @NotNull
+	public <T> List<T> query(String statement, Map<Integer, Object> params, RowMapper<T> mapper) {
+		List<T> rows = new ArrayList<>();
+		boolean res = forEachResult(statement, params, mapper, rows::add);
+
+		return res ? rows : new ArrayList<>();
+	}
 
+	private static void bindParameters(PreparedStatement statement, Map<Integer, Object> params) throws SQLException {
+		if (params == null) {
+			return;
+		}
+		for (Map.Entry<Integer, Object> param : params.entrySet()) {
+			bindValue(statement, param.getKey(), param.getValue());
+		}
+	}
+
+	private static void bindValue(PreparedStatement statement, int index, Object o) throws SQLException {
+		if (o == null) {
+			statement.setNull(index, Types.NULL);
+		} else if (o instanceof byte[]) {
+			statement.setBytes(index, (byte[]) o);
+		} else if (o instanceof Blob) {
+			statement.setBlob(index, (Blob) o);
+		} else if (o instanceof String) {
+			statement.setString(index, (String) o);
+		} else {
+			statement.setObject(index, o);
+		}
+		traceParameter(index, o);
+	}
+
+	private static void consumeRows(PreparedStatement statement, RowConsumer consumer) throws SQLException {
+		try (ResultSet res = statement.executeQuery()) {
+			while (res.next()) {
+				consumer.execute(res);
 			}
+		}
+	}
 
-			res.close();
-			placeStatement.close();
+	/**
+	 * Adapts a {@link RowMapper} to a {@link RowConsumer}, resolving the mapper's column indexes on the first row
+	 */
+	private static final class MappingConsumer<T> implements RowConsumer {
+		private final RowMapper<T> mapper;
+		private final Executable<T> consumer;
+		private int[] indexes;
+
+		private MappingConsumer(RowMapper<T> mapper, Executable<T> consumer) {
+			this.mapper = mapper;
+			this.consumer = consumer;
+		}
 
-			return list;
-		});
+		@Override
+		public void execute(ResultSet res) throws SQLException {
+			if (indexes == null) {
+				String[] columns = mapper.getColumns();
+				indexes = new int[columns.length];
+				for (int i = 0; i < columns.length; i++) {
+					indexes[i] = res.findColumn(columns[i]);
+				}
+			}
 
-		return rows == null ? new ArrayList<>() : rows;
+			T row = mapper.map(res, indexes);
+			if (row != null) {
+				consumer.execute(row);
+			}
+		}
+	}
+
+	private static Map<Object, Object> readRow(ResultSet res, String[] columns) {
+		Map<Object, Object> obs = new HashMap<>();
+		for (String col : columns) {
+			try {
+				Object o = res.getObject(col);
+				obs.put(col, o);
+			} catch (SQLException ignored) {}
+		}
+		return obs;
 	}
 
 	/**
@@ -455,7 +857,7 @@ public class SQLiteManager implements SQLManager {
 	 * @return A list of the values
 	 */
 	@Override @NotNull
-	public synchronized List<Object> getColumnInTable(String tableName, String column) {
+	public List<Object> getColumnInTable(String tableName, String column) {
 		return getColumnInTable(tableName, column, null);
 	}
 
@@ -467,27 +869,23 @@ public class SQLiteManager implements SQLManager {
 	 * @return A list of the values
 	 */
 	@Override @NotNull
-	public synchronized List<Object> getColumnInTable(String tableName, String column, String extra) {
+	public List<Object> getColumnInTable(String tableName, String column, String extra) {
 		List<Object> columnVals = doWhileConnected(conn -> {
-			StringBuilder query = new StringBuilder("SELECT * FROM "+tableName);
+			StringBuilder query = new StringBuilder("SELECT "+SQLUtility.selectList(column)
+					+" FROM "+SQLUtility.quoteIdentifier(tableName));
 
 			if (extra != null && !extra.trim().equals("")) {
 				query.append(" ").append(extra);
 			}
 			query.append(";");
-			Statement statement = conn.createStatement();
-			ResultSet res = statement.executeQuery(query.toString());
+			ResultSet res = prepare(conn, query.toString()).executeQuery();
 			List<Object> list = new ArrayList<>();
 
 			while (res.next()) {
-				try {
-					Object o = res.getObject(column);
-					list.add(o);
-				} catch (SQLException ignored) {}
+				list.add(res.getObject(1));
 			}
 
 			res.close();
-			statement.close();
 
 			return list;
 		});
@@ -499,17 +897,45 @@ public class SQLiteManager implements SQLManager {
 	 * Get the number of rows present in a table
 	 *
 	 * @param tableName The table
-	 * @return The number of rows (counted by taking max rowid)
+	 * @return The number of rows, read from the maintained count if the table is tracked with
+	 * {@link #trackRowCount(String)}, otherwise counted with COUNT(*), or -1 if the count could not be read
 	 */
 	@Override
-	public synchronized int getRowCount(String tableName) {
-		Integer count = doWhileConnected(conn -> {
-			Statement statement = conn.createStatement();
-			ResultSet res = statement.executeQuery("SELECT rowid FROM "+tableName+" ORDER by rowid DESC;");
-			return res.getInt("rowid");
+	public int getRowCount(String tableName) {
+		Long count = doWhileConnected(conn -> {
+			try {
+				Long tracked = RowCounts.read(prepare(conn, RowCounts.countQuery()), tableName);
+				if (tracked != null) {
+					return tracked;
+				}
+			} catch (SQLException ignored) {} // No table is tracked yet, fall back to counting
+
+			try (ResultSet res = prepare(conn, "SELECT COUNT(*) FROM "+SQLUtility.quoteIdentifier(tableName)+";")
+					.executeQuery()) {
+				return res.next() ? res.getLong(1) : 0L;
+			}
 		});
 
-		return count == null ? -1 : count;
+		return count == null ? -1 : (int) Math.min(count, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Start maintaining the number of rows in a table, so that {@link #getRowCount(String)} is a single-row read
+	 * regardless of the table's size. The count is kept by insert and delete triggers on the table, and is seeded from
+	 * the table's current contents the first time the table is tracked
+	 *
+	 * @param tableName The table
+	 * @return TRUE if the table's row count is tracked, FALSE otherwise
+	 */
+	@Override
+	public boolean trackRowCount(String tableName) {
+		// Seeding the count and creating the triggers in one transaction keeps them consistent
+		Boolean res = inTransaction(conn -> {
+			RowCounts.install(conn, tableName);
+			return true;
+		});
+
+		return res != null && res;
 	}
 
 	/**
@@ -519,7 +945,7 @@ public class SQLiteManager implements SQLManager {
 	 * @
 	 */
 	@Override
-	public synchronized boolean execute(String statement) {
+	public boolean execute(String statement) {
 		return execute(statement, null);
 	}
 	
@@ -529,9 +955,9 @@ public class SQLiteManager implements SQLManager {
 	 * @param statement The SQL statement to execute
 	 */
 	@Override
-	public synchronized boolean execute(String statement, Map<Integer, Object> params) {
-		Boolean res = doWhileConnected(conn -> {
-			PreparedStatement placeStatement = conn.prepareStatement(statement);
+	public boolean execute(String statement, Map<Integer, Object> params) {
+		Boolean res = doWhileWriting(conn -> {
+			PreparedStatement placeStatement = prepare(conn, statement);
 			if (params != null) {
 				for (Integer i : params.keySet()) {
 					Object o = params.get(i);
@@ -547,15 +973,234 @@ public class SQLiteManager implements SQLManager {
 					} else {
 						placeStatement.setString(i, o.toString());
 					}
+					traceParameter(i, o);
 				}
 			}
 
 			placeStatement.executeUpdate();
-			placeStatement.close();
 
 			return true;
 		});
 
 		return res != null && res;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Run a task in an IMMEDIATE transaction, see {@link #inTransaction(TransactionMode, SQLExecutable)}
+	 *
+	 * @param exec The task to run
+	 * @return The result of the task, or null if the transaction was rolled back
+	 */
+	@Override @Nullable
+	public <T> T inTransaction(SQLExecutable<T> exec) {
+		return inTransaction(TransactionMode.IMMEDIATE, exec);
+	}
+
+	/**
+	 * Run a task in a transaction on the writer connection, committing it if the task completes and rolling it back if
+	 * the task throws. Every other call made on this manager by the same thread while the task runs reuses the
+	 * transaction's connection, so a group of writes made through the manager commits or rolls back as a whole.
+	 * <p>
+	 * If the thread is already in a transaction, the task runs in a savepoint of it instead, so that only the task's
+	 * own writes are rolled back if it throws and the enclosing transaction can carry on
+	 *
+	 * @param mode How the transaction acquires its locks, ignored for nested calls
+	 * @param exec The task to run, throwing an {@link SQLException} rolls back its writes
+	 * @return The result of the task, or null if the transaction was rolled back
+	 */
+	@Override @Nullable
+	public <T> T inTransaction(TransactionMode mode, SQLExecutable<T> exec) {
+		Transaction enclosing = transaction.get();
+		if (enclosing != null) {
+			return inSavepoint(enclosing, exec);
+		}
+
+		SQLConnectionPool pool = sql.getWriteConnectionPool();
+		Connection c = getConnection(pool);
+		if (c == null) {
+			return null;
+		}
+
+		try {
+			executeRaw(c, "BEGIN " + mode.name() + ";");
+		} catch (SQLException e) {
+			pool.release(c);
+			return null;
+		}
+
+		Transaction current = new Transaction(c);
+		transaction.set(current);
+		long start = System.nanoTime();
+		T result;
+		try {
+			result = exec.execute(c);
+			executeRaw(c, "COMMIT;");
+		} catch (SQLException e) {
+			Metrics.getInstance().counter("sql_rollbacks").increment();
+			rollbackQuietly(c, "ROLLBACK;");
+			return null;
+		} catch (RuntimeException e) {
+			Metrics.getInstance().counter("sql_rollbacks").increment();
+			rollbackQuietly(c, "ROLLBACK;");
+			throw e;
+		} finally {
+			Metrics.getInstance().histogram("sql_transaction_nanos").recordSince(start);
+			transaction.remove();
+			pool.release(c);
+		}
+
+		// The actions run once the writer has been released, so that they may use the manager themselves
+		for (PendingAction action : current.afterCommit) {
+			runAfterCommit(action.action);
+		}
+		return result;
+	}
+
+	/**
+	 * Run a group of reads against one consistent view of the database, in a read transaction on one of the pooled
+	 * read-only connections. Every other call made on this manager by the same thread while the task runs reuses the
+	 * snapshot's connection, so none of them see writes committed after the snapshot was taken, and any writes they
+	 * attempt fail. In WAL mode the snapshot neither waits for nor holds up the writer.
+	 * <p>
+	 * If the thread is already in a transaction, the task runs in a savepoint of it instead, which is already a
+	 * consistent view. In memory storage readers read uncommitted data, so the view is not isolated from the writer
+	 *
+	 * @param exec The task to run
+	 * @return The result of the task, or null if the snapshot could not be taken or the task threw an
+	 * {@link SQLException}
+	 */
+	@Override @Nullable
+	public <T> T inSnapshot(SQLExecutable<T> exec) {
+		Transaction current = transaction.get();
+		if (current != null) {
+			return inSavepoint(current, exec);
+		}
+
+		SQLConnectionPool pool = sql.getConnectionPool();
+		Connection c = getConnection(pool);
+		if (c == null) {
+			return null;
+		}
+
+		try {
+			executeRaw(c, "BEGIN DEFERRED;");
+		} catch (SQLException e) {
+			pool.release(c);
+			return null;
+		}
+
+		transaction.set(new Transaction(c));
+		long start = System.nanoTime();
+		try {
+			// A deferred transaction only takes its snapshot at its first read, so read before the task does
+			try (Statement st = c.createStatement();
+				 ResultSet res = st.executeQuery("SELECT COUNT(*) FROM sqlite_master;")) {
+				res.next();
+			}
+			return exec.execute(c);
+		} catch (SQLException e) {
+			return null;
+		} finally {
+			Metrics.getInstance().histogram("sql_snapshot_nanos").recordSince(start);
+			rollbackQuietly(c, "ROLLBACK;");
+			transaction.remove();
+			pool.release(c);
+		}
+	}
+
+	@Nullable
+	private static <T> T inSavepoint(Transaction current, SQLExecutable<T> exec) {
+		Connection c = current.connection;
+		String savepoint = "sp_" + (++current.depth);
+		try {
+			executeRaw(c, "SAVEPOINT " + savepoint + ";");
+		} catch (SQLException e) {
+			current.depth--;
+			return null;
+		}
+
+		try {
+			T result = exec.execute(c);
+			executeRaw(c, "RELEASE " + savepoint + ";");
+			// The savepoint's actions now belong to the enclosing savepoint, and are discarded if that rolls back
+			current.afterCommit.forEach(action -> action.depth = Math.min(action.depth, current.depth - 1));
+			return result;
+		} catch (SQLException e) {
+			Metrics.getInstance().counter("sql_savepoint_rollbacks").increment();
+			rollbackQuietly(c, "ROLLBACK TO " + savepoint + ";", "RELEASE " + savepoint + ";");
+			current.afterCommit.removeIf(action -> action.depth >= current.depth);
+			return null;
+		} catch (RuntimeException e) {
+			Metrics.getInstance().counter("sql_savepoint_rollbacks").increment();
+			rollbackQuietly(c, "ROLLBACK TO " + savepoint + ";", "RELEASE " + savepoint + ";");
+			current.afterCommit.removeIf(action -> action.depth >= current.depth);
+			throw e;
+		} finally {
+			current.depth--;
+		}
+	}
+
+	/**
+	 * Run an action once the writes made so far by the current thread's transaction have been committed, or straight
+	 * away if the thread is not in a transaction. The action is discarded if the writes are rolled back instead, so it
+	 * can be used to keep state held outside of the database, such as a cache, coherent with it
+	 *
+	 * @param action The action to run, it runs on the thread that committed the transaction
+	 */
+	@Override
+	public void afterCommit(Runnable action) {
+		Transaction current = transaction.get();
+		if (current == null) {
+			runAfterCommit(action);
+			return;
+		}
+		current.afterCommit.add(new PendingAction(action, current.depth));
+	}
+
+	private static void runAfterCommit(Runnable action) {
+		try {
+			action.run();
+		} catch (RuntimeException e) {
+			System.out.println("Error running SQL after commit action!");
+			e.printStackTrace();
+		}
+	}
+
+	private static void executeRaw(Connection conn, String statement) throws SQLException {
+		try (Statement st = conn.createStatement()) {
+			st.executeUpdate(statement);
+		}
+	}
+
+	private static void rollbackQuietly(Connection conn, String... statements) {
+		try {
+			for (String statement : statements) {
+				executeRaw(conn, statement);
+			}
+		} catch (SQLException e) {
+			System.out.println("Error rolling back SQL transaction!");
+			e.printStackTrace();
+		}
+	}
+
+	private static final class Transaction {
+		private final Connection connection;
+		private final List<PendingAction> afterCommit = new ArrayList<>();
+		private int depth = 0;
+
+		private Transaction(Connection connection) {
+			this.connection = connection;
+		}
+	}
+
+	private static final class PendingAction {
+		private final Runnable action;
+		// The depth of the innermost savepoint the action was added in, 0 for the transaction itself
+		private int depth;
+
+		private PendingAction(Runnable action, int depth) {
+			this.action = action;
+			this.depth = depth;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Enum to represent the named PRAGMA tuning profiles applied to every connection opened to the SQLite database.
+ * <p>
+ * All profiles use write-ahead logging, so readers are not blocked by a writer, they differ in how much durability is
+ * traded for write speed and how much memory is given to the page cache
+ */
+public enum SQLiteProfile {
+    // Every commit is synced to disk before it returns
+    DURABLE("durable", "FULL", -16_000, 0, "DEFAULT", 5_000),
+    // Commits are durable at WAL checkpoints, a power loss may roll back the most recent commits but never corrupts
+    BALANCED("balanced", "NORMAL", -32_000, 268_435_456L, "MEMORY", 5_000),
+    // For large imports, commits are not synced at all and the page cache is large
+    BULK_IMPORT("bulk-import", "OFF", -131_072, 268_435_456L, "MEMORY", 30_000);
+
+    public static final SQLiteProfile DEFAULT = BALANCED;
+
+    private static final String JOURNAL_MODE = "WAL";
+
+    private final String name;
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeoutMillis;
+
+    /**
+     * @param name the name of the profile, as used in the config
+     * @param synchronous the value of the synchronous PRAGMA
+     * @param cacheSize the value of the cache_size PRAGMA, negative values are in KiB, positive values in pages
+     * @param mmapSize the value of the mmap_size PRAGMA, in bytes
+     * @param tempStore the value of the temp_store PRAGMA
+     * @param busyTimeoutMillis the value of the busy_timeout PRAGMA, in millis
+     */
+    SQLiteProfile(String name, String synchronous, int cacheSize, long mmapSize, String tempStore,
+                  int busyTimeoutMillis) {
+        this.name = name;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    /**
+     * Apply the profile's PRAGMAs to a connection
+     * @param connection the connection to apply the profile to, must not be in a transaction
+     * @throws SQLException if any of the PRAGMAs could not be applied
+     */
+    public void apply(@NotNull Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // busy_timeout first, so that switching the journal mode waits for other connections instead of failing
+            statement.execute("PRAGMA busy_timeout = " + busyTimeoutMillis + ";");
+            statement.execute("PRAGMA journal_mode = " + JOURNAL_MODE + ";");
+            statement.execute("PRAGMA synchronous = " + synchronous + ";");
+            statement.execute("PRAGMA cache_size = " + cacheSize + ";");
+            statement.execute("PRAGMA mmap_size = " + mmapSize + ";");
+            statement.execute("PRAGMA temp_store = " + tempStore + ";");
+        }
+    }
+
+    /**
+     * Get the name of the profile (e.g., bulk-import)
+     * @return the name of the profile
+     */
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the busy timeout of the profile, how long a connection waits on a locked database before failing
+     * @return the busy timeout, in millis
+     */
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    /**
+     * Get a profile based on its name (e.g., bulk-import)
+     * @param name the name of the profile, of the form returned by {@link #getName()}
+     * @return the profile associated with that name, or null if no profile is found
+     */
+    @Nullable
+    public static SQLiteProfile getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (SQLiteProfile profile : values()) {
+            if (!profile.getName().equalsIgnoreCase(name.trim())) {
+                continue;
+            }
+            return profile;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,55 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Enum to represent where an {@link SQLite} database keeps its data
+ */
+public enum SQLiteStorage {
+    // A database file on disk
+    FILE("file"),
+    // A shared-cache in-memory database, which lives only as long as the SQLite instance and is never written to disk
+    MEMORY("memory");
+
+    public static final SQLiteStorage DEFAULT = FILE;
+
+    /**
+     * The system property that, when set, overrides the storage set in the config (e.g., -Dlogbook.sql.storage=memory)
+     */
+    public static final String PROPERTY = "logbook.sql.storage";
+
+    private final String name;
+
+    SQLiteStorage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name of the storage (e.g., memory)
+     * @return the name of the storage
+     */
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get a storage based on its name (e.g., memory)
+     * @param name the name of the storage, of the form returned by {@link #getName()}
+     * @return the storage associated with that name, or null if no storage is found
+     */
+    @Nullable
+    public static SQLiteStorage getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (SQLiteStorage storage : values()) {
+            if (!storage.getName().equalsIgnoreCase(name.trim())) {
+                continue;
+            }
+            return storage;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Brings the schema of a database up to date by applying registered {@link Migration migrations} in version order.
+ * The version of the schema is recorded in the database's user_version PRAGMA, and each migration is applied in its
+ * own transaction together with the update of that version, so a database is never left part way through a migration
+ */
+public class SchemaMigrator {
+    private final SQLManager manager;
+    private final TreeMap<Integer, Migration> migrations = new TreeMap<>();
+
+    public SchemaMigrator(@NotNull SQLManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Register a migration to be applied by {@link #migrate()}
+     * @param migration the migration
+     * @return this migrator, so that registrations can be chained
+     * @throws IllegalArgumentException if the migration's version is not positive or is already registered
+     */
+    @NotNull
+    public SchemaMigrator register(@NotNull Migration migration) {
+        if (migration.version() < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1: " + migration.version());
+        }
+        if (migrations.putIfAbsent(migration.version(), migration) != null) {
+            throw new IllegalArgumentException("Duplicate migration version: " + migration.version());
+        }
+        return this;
+    }
+
+    /**
+     * Get the version of the schema the database is currently at
+     * @return the schema version, 0 for a database no migration has been applied to, or -1 if it could not be read
+     */
+    public int getVersion() {
+        Integer version = manager.inTransaction(SQLManager.TransactionMode.DEFERRED, SchemaMigrator::readVersion);
+        return version == null ? -1 : version;
+    }
+
+    /**
+     * Get the version of the schema the database is at once every registered migration has been applied
+     * @return the latest schema version, 0 if no migrations are registered
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.lastKey();
+    }
+
+    /**
+     * Apply, in version order, every registered migration newer than the current version of the database
+     * @return TRUE if the database is up to date, FALSE if a migration failed, in which case the database is left at
+     * the version of the last migration that succeeded, or if the database is newer than the latest migration
+     */
+    public boolean migrate() {
+        int current = getVersion();
+        if (current < 0) {
+            System.out.println("Error reading the SQL schema version!");
+            return false;
+        }
+        if (current > getLatestVersion()) {
+            System.out.println("The SQL database is at schema version " + current + ", which is newer than the latest"
+                    + " known version " + getLatestVersion() + "!");
+            return false;
+        }
+
+        for (Map.Entry<Integer, Migration> entry : migrations.tailMap(current, false).entrySet()) {
+            Migration migration = entry.getValue();
+            System.out.println("Applying schema migration " + migration.version() + ": " + migration.description()
+                    + "...");
+
+            Boolean res = manager.inTransaction(conn -> {
+                if (!Boolean.TRUE.equals(migration.step().execute(conn))) {
+                    throw new SQLException("Migration " + migration.version() + " failed");
+                }
+                writeVersion(conn, migration.version());
+                return true;
+            });
+
+            if (res == null) {
+                System.out.println("Error applying schema migration " + migration.version() + "!");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readVersion(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+             ResultSet res = statement.executeQuery("PRAGMA user_version;")) {
+            return res.next() ? res.getInt(1) : 0;
+        }
+    }
+
+    private static void writeVersion(Connection conn, int version) throws SQLException {
+        // PRAGMA values cannot be bound as parameters, the version is an int so it is safe to inline
+        try (Statement statement = conn.createStatement()) {
+            statement.executeUpdate("PRAGMA user_version = " + version + ";");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least recently used cache of prepared statements for a single connection, keyed by their SQL text, so repeated
+ * queries reuse an already compiled statement instead of being parsed and planned again.
+ * <p>
+ * A cache is confined to the connection it belongs to, and must only be used by the thread currently holding that
+ * connection. Statements returned by the cache are owned by it and must not be closed by the caller
+ */
+public class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    private volatile long hits = 0;
+    private volatile long misses = 0;
+
+    /**
+     * Creates a statement cache
+     * @param connection the connection the cached statements are prepared on
+     * @param maxSize the maximum number of statements to keep prepared
+     */
+    public StatementCache(@NotNull Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = Math.max(1, maxSize);
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get a prepared statement for the given SQL text, preparing and caching it if it is not already cached. Any
+     * parameters from a previous use of the statement are cleared
+     * @param sql the SQL text of the statement
+     * @return the prepared statement, which must not be closed by the caller
+     * @throws SQLException if the statement could not be prepared
+     */
+    @NotNull
+    public PreparedStatement prepare(@NotNull String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            hits++;
+            statement.clearParameters();
+            return statement;
+        }
+
+        misses++;
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Close and remove all cached statements
+     */
+    public void clear() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    /**
+     * Get the number of statements currently cached
+     * @return the number of cached statements
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Get the number of times a statement was served from the cache
+     * @return the number of cache hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of times a statement had to be prepared because it was not cached
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {}
+    }
+}
@@ -0,0 +1,109 @@
+package dev.extrreme.logbook.sql;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Enum to represent how {@link UUID UUIDs} are stored in the SQLite database
+ */
+public enum UuidStorage {
+    // The 36 character string form (e.g., 123e4567-e89b-12d3-a456-426614174000)
+    TEXT("text"),
+    // The 16 bytes of the UUID, most significant first, which sort in the same order as the string form
+    BLOB("blob");
+
+    public static final UuidStorage DEFAULT = BLOB;
+
+    private static final int BYTES = 16;
+
+    private final String name;
+
+    UuidStorage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Encode a UUID into the value stored in the database
+     * @param uuid the UUID to encode
+     * @return the string form of the UUID, or its 16 bytes, depending on the storage
+     */
+    @NotNull
+    public Object encode(@NotNull UUID uuid) {
+        if (this == TEXT) {
+            return uuid.toString();
+        }
+        return ByteBuffer.allocate(BYTES)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Decode a UUID from a value read from the database, in either storage
+     * @param value the value, the string form of a UUID or its 16 bytes
+     * @return the UUID, or null if the value is null or is not a UUID
+     */
+    @Nullable
+    public static UUID decode(@Nullable Object value) {
+        if (value instanceof byte[] bytes) {
+            if (bytes.length != BYTES) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        if (value instanceof String string) {
+            try {
+                return UUID.fromString(string);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the SQL type of a column holding UUIDs in this storage, constrained so that only UUIDs in this storage can be
+     * stored in it
+     * @param column the quoted name of the column
+     * @return the type of the column (e.g., BLOB NOT NULL CHECK (...))
+     */
+    @NotNull
+    public String getColumnType(@NotNull String column) {
+        int length = this == TEXT ? 36 : BYTES;
+        return name.toUpperCase(Locale.ROOT) + " NOT NULL CHECK (typeof(" + column + ") = '" + name + "' AND length("
+                + column + ") = " + length + ")";
+    }
+
+    /**
+     * Get the name of the storage (e.g., blob), which is also the type SQLite's typeof() reports for stored values
+     * @return the name of the storage
+     */
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get a storage based on its name (e.g., blob)
+     * @param name the name of the storage, of the form returned by {@link #getName()}
+     * @return the storage associated with that name, or null if no storage is found
+     */
+    @Nullable
+    public static UuidStorage getByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (UuidStorage storage : values()) {
+            if (!storage.getName().equalsIgnoreCase(name.trim())) {
+                continue;
+            }
+            return storage;
+        }
+        return null;
+    }
+}
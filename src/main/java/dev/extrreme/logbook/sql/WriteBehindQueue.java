@@ -0,0 +1,198 @@
+package dev.extrreme.logbook.sql;
+
+import dev.extrreme.logbook.metrics.Metrics;
+import dev.extrreme.logbook.sql.SQLManager.SQLExecutable;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues writes to be applied in the background by a single writer thread, which drains the queue in group commits:
+ * every write that arrives within a short delay of the first, up to a maximum number of writes, is applied in one
+ * transaction, so a burst of writes costs one commit instead of one commit each.
+ * <p>
+ * Each write runs in its own savepoint of the group's transaction, so a failed write is rolled back alone and the rest
+ * of the group still commits. The future of each write is completed once the group's transaction has committed, on
+ * the writer thread, so dependent stages that do any real work should be run asynchronously
+ */
+public class WriteBehindQueue {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final SQLManager manager;
+    private final BlockingQueue<Write<?>> queue;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    /**
+     * @param manager the manager the writes are applied through
+     * @param capacity the maximum number of writes waiting in the queue, further writes block until there is room
+     * @param maxGroupSize the maximum number of writes applied in one transaction
+     * @param maxDelayMillis how long to wait for more writes after the first write of a group, in millis
+     */
+    public WriteBehindQueue(@NotNull SQLManager manager, int capacity, int maxGroupSize, long maxDelayMillis) {
+        this.manager = manager;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+
+        this.writer = new Thread(this::run, "SQL write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a write, blocking while the queue is full
+     * @param exec the write to apply, its connection is the writer connection and any call made through the manager
+     *             from it joins the group's transaction
+     * @return a future completed with the result of the write once it has been committed, or completed exceptionally
+     * if the write threw or its group could not be committed
+     */
+    @NotNull
+    public <T> CompletableFuture<T> submit(@NotNull SQLExecutable<T> exec) {
+        Write<T> write = new Write<>(exec);
+        if (closed) {
+            write.future.completeExceptionally(new IllegalStateException("The write queue is closed"));
+            return write.future;
+        }
+
+        try {
+            queue.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.future.completeExceptionally(e);
+        }
+        return write.future;
+    }
+
+    /**
+     * Get a future completed once every write queued before this call has been committed
+     * @return the future
+     */
+    @NotNull
+    public CompletableFuture<Void> flush() {
+        return submit(conn -> null);
+    }
+
+    /**
+     * Get the number of writes waiting in the queue
+     * @return the number of queued writes
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting writes and wait for every queued write to be committed
+     */
+    public void close() {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Writes that raced with closing, after the writer had already stopped
+        Write<?> write;
+        while ((write = queue.poll()) != null) {
+            write.future.completeExceptionally(new IllegalStateException("The write queue is closed"));
+        }
+    }
+
+    private void run() {
+        List<Write<?>> group = new ArrayList<>(maxGroupSize);
+        while (true) {
+            Write<?> first;
+            try {
+                first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+
+            group.add(first);
+            long deadline = System.nanoTime() + maxDelayNanos;
+            while (group.size() < maxGroupSize) {
+                long remaining = deadline - System.nanoTime();
+                Write<?> next;
+                try {
+                    next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (next == null) {
+                    break;
+                }
+                group.add(next);
+            }
+
+            commit(group);
+            group.clear();
+        }
+    }
+
+    private void commit(List<Write<?>> group) {
+        Metrics.getInstance().histogram("sql_group_commit_writes").record(group.size());
+        long start = System.nanoTime();
+        Boolean committed = manager.inTransaction(conn -> {
+            for (Write<?> write : group) {
+                write.apply(manager);
+            }
+            return true;
+        });
+        Metrics.getInstance().histogram("sql_group_commit_nanos").recordSince(start);
+
+        for (Write<?> write : group) {
+            write.complete(committed != null);
+        }
+    }
+
+    private static final class Write<T> {
+        private final SQLExecutable<T> exec;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Exception error;
+
+        private Write(SQLExecutable<T> exec) {
+            this.exec = exec;
+        }
+
+        private void apply(SQLManager manager) {
+            try {
+                manager.inTransaction(conn -> {
+                    try {
+                        return result = exec.execute(conn);
+                    } catch (SQLException e) {
+                        error = e;
+                        throw e;
+                    }
+                });
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private void complete(boolean committed) {
+            if (!committed) {
+                future.completeExceptionally(new SQLException("The group commit was rolled back"));
+            } else if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
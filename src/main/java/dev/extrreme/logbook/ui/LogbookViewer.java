@@ -12,6 +12,7 @@ import dev.extrreme.logbook.manager.FlightManager;
 import dev.extrreme.logbook.dto.Aircraft;
 import dev.extrreme.logbook.dto.Airframe;
 import dev.extrreme.logbook.dto.Flight;
+import dev.extrreme.logbook.dto.LogbookStatistics;
 import dev.extrreme.logbook.ui.table.AircraftsTableModel;
 import dev.extrreme.logbook.ui.table.CenteredTableCellRenderer;
 import dev.extrreme.logbook.ui.table.FlightsTableModel;
@@ -31,7 +32,9 @@ import java.awt.image.BufferedImage;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class LogbookViewer extends JFrame {
 
@@ -76,6 +79,9 @@ public class LogbookViewer extends JFrame {
     private String selectedAircraft = null;
     private UUID selectedFlight = null;
 
+    // The content loading for the most recent refresh, refreshes may be requested from any thread
+    private volatile CompletableFuture<Void> contentFuture = null;
+
     public LogbookViewer() {
         initUI();
         initButtons();
@@ -557,24 +563,50 @@ public class LogbookViewer extends JFrame {
             airframeSelectionComboBox.addItem(airframe.name());
         }
 
-        aircraftSelectionComboBox.removeAllItems();
-        AircraftManager.getAllAircraft(aircrafts -> {
-            aircraftTable.setModel(new AircraftsTableModel(aircrafts));
+        // Abandon a refresh that is still loading, so that its results cannot overwrite the newer ones
+        if (contentFuture != null) {
+            contentFuture.cancel(false);
+        }
+
+        // The queries run concurrently and their results are applied together, in a fixed order, once all of them
+        // have completed. The statistics are read from a single snapshot, so they always agree with each other
+        CompletableFuture<List<Aircraft>> aircrafts = AircraftManager.allAircraftAsync();
+        CompletableFuture<List<Flight>> flights = FlightManager.loggedFlightsAsync();
+        CompletableFuture<LogbookStatistics> statistics = FlightManager.statisticsAsync();
+
+        CompletableFuture<Void> content = CompletableFuture.allOf(aircrafts, flights, statistics);
+        contentFuture = content;
+        content.thenRunAsync(() -> {
+            if (content != contentFuture) {
+                return;
+            }
+
+            aircraftTable.setModel(new AircraftsTableModel(aircrafts.join()));
             adjustColumns(aircraftTable, WIDTH/3, WIDTH/3, WIDTH/3);
-            aircrafts.forEach(aircraft -> aircraftSelectionComboBox.addItem(aircraft.toString()));
-        });
+            aircraftSelectionComboBox.removeAllItems();
+            aircrafts.join().forEach(aircraft -> aircraftSelectionComboBox.addItem(aircraft.toString()));
 
-        FlightManager.getLoggedFlights(flights -> {
-            Collections.reverse(flights); // Reversed so they are in order of being logged
-            flightsTable.setModel(new FlightsTableModel(flights));
+            List<Flight> loggedFlights = flights.join();
+            Collections.reverse(loggedFlights); // Reversed so they are in order of being logged
+            flightsTable.setModel(new FlightsTableModel(loggedFlights));
             adjustColumns(flightsTable, 100, 100, 100, 150, 150, 150);
-        });
 
-        FlightManager.getTotalNumberOfFlights(total -> flightCount.setText(total.toString()));
-        FlightManager.getLongestFlight(longest -> longestFlight.setText(longest.toSimpleString()));
-        AircraftManager.getMostUsedAircraft(mostUsed -> mostUsedAircraft.setText(mostUsed.toString()));
-        FlightManager.getMostFrequentDeparture(freqDep -> mostFreqDep.setText(freqDep));
-        FlightManager.getMostFrequentArrival(freqArr -> mostFreqArr.setText(freqArr));
+            LogbookStatistics stats = statistics.join();
+            if (stats == null) {
+                return;
+            }
+            flightCount.setText(String.valueOf(stats.totalFlights()));
+            longestFlight.setText(stats.longestFlight() == null ? "" : stats.longestFlight().toSimpleString());
+            mostUsedAircraft.setText(stats.mostUsedAircraft() == null ? "" : stats.mostUsedAircraft().toString());
+            mostFreqDep.setText(stats.mostFrequentDeparture());
+            mostFreqArr.setText(stats.mostFrequentArrival());
+        }, SwingUtilities::invokeLater).exceptionally(e -> {
+            if (!content.isCancelled()) {
+                System.out.println("Error loading logbook content!");
+                e.printStackTrace();
+            }
+            return null;
+        });
     }
 
     /**
@@ -15,9 +15,11 @@ public class FileUtility {
     public static final String SEPARATOR = System.getProperty("file.separator");
 
     /**
-     * A string containing the user appdata directory filepath
+     * A string containing the user appdata directory filepath, or the user home directory filepath where there is no
+     * appdata directory (i.e., outside of Windows)
      */
-    public static final String USER_APPDATA = System.getenv("APPDATA") + SEPARATOR;
+    public static final String USER_APPDATA = (System.getenv("APPDATA") == null ? System.getProperty("user.home")
+            : System.getenv("APPDATA")) + SEPARATOR;
 
     public interface FileExecutable<T> extends ExceptionExecutable<T, IOException> {}
 
@@ -1,6 +1,7 @@
 package dev.extrreme.logbook.utils;
 
 import dev.extrreme.logbook.sql.SQL;
+import dev.extrreme.logbook.sql.UuidStorage;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -9,6 +10,7 @@ import java.sql.*;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.UUID;
 
 public class SQLUtility {
 
@@ -16,6 +18,37 @@ public class SQLUtility {
         new CSVConverter().convert(sql, tableName);
     }
 
+    /**
+     * Quote an SQL identifier (e.g., a table or column name) so it can be safely placed in a query, any backticks in
+     * the identifier are escaped
+     * @param identifier the identifier to quote
+     * @return the quoted identifier (e.g., "`departuretime`")
+     */
+    public static String quoteIdentifier(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    /**
+     * Build the column list of a SELECT statement from the specified columns, each quoted with
+     * {@link #quoteIdentifier(String)}
+     * @param columns the columns to select, all columns are selected if null or empty
+     * @return the column list (e.g., "`dep`, `arr`"), or "*"
+     */
+    public static String selectList(String... columns) {
+        if (columns == null || columns.length == 0) {
+            return "*";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append(quoteIdentifier(columns[i]));
+        }
+        return sb.toString();
+    }
+
     private static final class CSVConverter {
         private BufferedWriter fileWriter;
 
@@ -42,6 +75,12 @@ public class SQLUtility {
 
                         if (valueObject != null) valueString = valueObject.toString();
 
+                        if (valueObject instanceof byte[]) {
+                            // The only blobs stored are uuids, which are written in their string form
+                            UUID uuid = UuidStorage.decode(valueObject);
+                            valueString = uuid == null ? "" : "\"" + uuid + "\"";
+                        }
+
                         if (valueObject instanceof String) {
                             valueString = "\"" + escapeDoubleQuotes(valueString) + "\"";
                         }
@@ -0,0 +1,167 @@
+package dev.extrreme.logbook.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers the single writer connection with read-modify-write transactions from several threads while readers take
+ * snapshots alongside them, checking that no write is lost and that every reader sees a consistent database
+ */
+class SQLiteManagerStressTest {
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int INCREMENTS = 250;
+    private static final long TIMEOUT_SECONDS = 120;
+
+    private static final String COUNTERS_TABLE = "counters";
+    private static final String INCREMENTS_TABLE = "increments";
+    private static final String COUNTER = "total";
+
+    @TempDir
+    File dir;
+
+    private SQLite sql;
+    private SQLiteManager manager;
+
+    @BeforeEach
+    void open() {
+        sql = new SQLite("stress", dir);
+        manager = sql.getManager();
+
+        assertTrue(manager.createTable(COUNTERS_TABLE, new String[] {"name", "value"},
+                new String[] {"TEXT NOT NULL", "INTEGER NOT NULL"}, "PRIMARY KEY (`name`)"));
+        assertTrue(manager.createTable(INCREMENTS_TABLE, new String[] {"id", "writer"},
+                new String[] {"INTEGER PRIMARY KEY", "INTEGER NOT NULL"}));
+        assertTrue(manager.trackRowCount(INCREMENTS_TABLE));
+        assertTrue(manager.execute("INSERT INTO " + COUNTERS_TABLE + " VALUES (?, 0);", Map.of(1, COUNTER)));
+    }
+
+    @AfterEach
+    void close() {
+        sql.close();
+    }
+
+    @Test
+    void concurrentReadModifyWritesAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS; i++) {
+                        assertEquals(Boolean.TRUE, manager.inTransaction(conn -> increment(writer)));
+                    }
+                    return null;
+                }));
+            }
+
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < READERS; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    long last = 0;
+                    int reads = 0;
+                    while (writing.get() || reads == 0) {
+                        long[] seen = manager.inSnapshot(conn -> new long[] {readCounter(),
+                                manager.getRowCount(INCREMENTS_TABLE)});
+                        assertNotNull(seen);
+                        // The counter and the rows written with it commit together, so a snapshot sees both or neither
+                        assertEquals(seen[0], seen[1]);
+                        assertTrue(seen[0] >= last, "Counter went back from " + last + " to " + seen[0]);
+                        last = seen[0];
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(TIMEOUT_SECONDS, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * INCREMENTS, readCounter());
+        assertEquals(WRITERS * INCREMENTS, manager.getRowCount(INCREMENTS_TABLE));
+        for (int w = 0; w < WRITERS; w++) {
+            List<Object> rows = manager.getColumnInTable(INCREMENTS_TABLE, "id", "WHERE `writer` = " + w);
+            assertEquals(INCREMENTS, rows.size(), "Increments of writer " + w);
+        }
+    }
+
+    @Test
+    void concurrentSingleWritesAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS; i++) {
+                        assertTrue(manager.setRowInTable(INCREMENTS_TABLE, "id", writer * INCREMENTS + i,
+                                Map.of("id", writer * INCREMENTS + i, "writer", writer)));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * INCREMENTS, manager.getRowCount(INCREMENTS_TABLE));
+        assertEquals(WRITERS * INCREMENTS, manager.getAllRowsInTable(INCREMENTS_TABLE, "id").size());
+    }
+
+    // Read the counter and write it back incremented, which loses updates unless no other write runs in between
+    private boolean increment(int writer) throws SQLException {
+        long value = readCounter();
+        if (!manager.execute("UPDATE " + COUNTERS_TABLE + " SET `value` = ? WHERE `name` = ?;",
+                Map.of(1, value + 1, 2, COUNTER))
+                || !manager.execute("INSERT INTO " + INCREMENTS_TABLE + " (`writer`) VALUES (?);", Map.of(1, writer))) {
+            throw new SQLException("Failed to write increment " + (value + 1));
+        }
+        return true;
+    }
+
+    private long readCounter() {
+        Object value = manager.getValInTable(COUNTERS_TABLE, "name", COUNTER, "value");
+        assertNotNull(value);
+        return ((Number) value).longValue();
+    }
+}